@@ -0,0 +1,83 @@
+/**
+ * Axis-aligned bounding box stored as primitive doubles.
+ * Used by the collision checks instead of JavaFX Bounds so that the game loop doesn't allocate.
+ */
+public final class AABB {
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    
+    /**
+     * Creates a box from its top left corner and size.
+     */
+    public AABB(double x, double y, double width, double height) {
+        set(x, y, width, height);
+    }
+    
+    /**
+     * Moves/resizes the box in place from its top left corner and size.
+     */
+    public void set(double x, double y, double width, double height) {
+        minX = x;
+        minY = y;
+        maxX = x + width;
+        maxY = y + height;
+    }
+    
+    /**
+     * Fits the box in place around a circle.
+     */
+    public void setFromCircle(double centerX, double centerY, double radius) {
+        minX = centerX - radius;
+        minY = centerY - radius;
+        maxX = centerX + radius;
+        maxY = centerY + radius;
+    }
+    
+    /**
+     * Whether the two boxes overlap (touching edges count, matching JavaFX Bounds).
+     */
+    public boolean intersects(AABB other) {
+        return maxX >= other.minX && other.maxX >= minX
+            && maxY >= other.minY && other.maxY >= minY;
+    }
+    
+    /**
+     * Width of the overlap between the two boxes along the X-axis.
+     */
+    public double overlapX(AABB other) {
+        return Math.min(maxX, other.maxX) - Math.max(minX, other.minX);
+    }
+    
+    /**
+     * Height of the overlap between the two boxes along the Y-axis.
+     */
+    public double overlapY(AABB other) {
+        return Math.min(maxY, other.maxY) - Math.max(minY, other.minY);
+    }
+    
+    public double getMinX() {
+        return minX;
+    }
+    
+    public double getMinY() {
+        return minY;
+    }
+    
+    public double getMaxX() {
+        return maxX;
+    }
+    
+    public double getMaxY() {
+        return maxY;
+    }
+    
+    public double getCenterX() {
+        return (minX + maxX) / 2;
+    }
+    
+    public double getCenterY() {
+        return (minY + maxY) / 2;
+    }
+}
@@ -1,6 +1,3 @@
-import javafx.scene.shape.Circle;
-import javafx.animation.*;
-
 /**
  * Coin class represents a collectible item (coin) in the game.
  */
@@ -17,6 +14,13 @@ public class Coin extends Item {
         super("COIN", centerX, centerY);
     }
     
+    /**
+     * Returns the radius of the coin.
+     */
+    public double getRadius() {
+        return getWidth() / 2;
+    }
+    
     /**
      * Checks if the player has collected this coin based on proximity.
      * 
@@ -27,14 +31,15 @@ public class Coin extends Item {
     public boolean checkCollection(Player player) {
         if (super.isCollected()) return false;
         
-        Circle coin = super.getCoin();
+        // Cheap rejection when the boxes don't even touch
+        if (!getBounds().intersects(player.getBounds())) return false;
         
-        // Calculate distance between player and coin centers
-        double dx = coin.getCenterX() - player.getCenterX();
-        double dy = coin.getCenterY() - player.getCenterY();
-        double distance = Math.sqrt(dx * dx + dy * dy);
+        // Calculate (squared) distance between player and coin centers
+        double dx = getCenterX() - player.getCenterX();
+        double dy = getCenterY() - player.getCenterY();
+        double reach = player.getRadius() + getRadius();
         
         // Check if player is close enough to collect
-        return distance < player.getRadius() + coin.getRadius();
+        return dx * dx + dy * dy < reach * reach;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+/**
+ * Solid/empty grid of a room used for swept (continuous) collision.
+ * Moving boxes are swept one axis at a time so they stop at the first solid cell in their path,
+ * however far they travel in a single step.
+ */
+public class CollisionWorld {
+    // Tolerance so a box resting exactly on a cell edge isn't treated as inside that cell
+    private static final double EPSILON = 1e-6;
+    
+    private final boolean[][] solid;
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    
+    /**
+     * Creates a collision world from a grid of solid cells.
+     *
+     * @param solid Whether each [x][y] cell blocks movement
+     * @param width Width of the grid in cells
+     * @param height Height of the grid in cells
+     * @param cellSize Size of a cell in pixels
+     */
+    public CollisionWorld(boolean[][] solid, int width, int height, int cellSize) {
+        this.solid = solid;
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+    }
+    
+    /**
+     * Whether the cell blocks movement (cells outside the grid never do).
+     */
+    public boolean isSolid(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && solid[x][y];
+    }
+    
+    /**
+     * Sweeps a box horizontally and stops it at the first solid cell it would enter.
+     *
+     * @param box The moving box (not modified)
+     * @param dx The requested movement along the X-axis
+     * @param contact Filled with the contact normal and time of impact
+     * @return The distance the box can actually move
+     */
+    public double sweepX(AABB box, double dx, Contact contact) {
+        contact.clear();
+        if (dx == 0) {
+            return 0;
+        }
+        
+        // Rows the box spans (edges only touching a row don't count)
+        int firstRow = floorCell(box.getMinY() + EPSILON);
+        int lastRow = ceilCell(box.getMaxY() - EPSILON) - 1;
+        
+        if (dx > 0) {
+            // Columns the leading (right) edge passes into
+            int firstCol = ceilCell(box.getMaxX() - EPSILON);
+            int lastCol = ceilCell(box.getMaxX() + dx - EPSILON) - 1;
+            for (int x = firstCol; x <= lastCol; x++) {
+                if (isColumnBlocked(x, firstRow, lastRow)) {
+                    double allowed = x * cellSize - box.getMaxX();
+                    contact.set(-1, 0, allowed / dx);
+                    return allowed;
+                }
+            }
+        }
+        else {
+            // Columns the leading (left) edge passes into
+            int firstCol = floorCell(box.getMinX() + EPSILON) - 1;
+            int lastCol = floorCell(box.getMinX() + dx + EPSILON);
+            for (int x = firstCol; x >= lastCol; x--) {
+                if (isColumnBlocked(x, firstRow, lastRow)) {
+                    double allowed = (x + 1) * cellSize - box.getMinX();
+                    contact.set(1, 0, allowed / dx);
+                    return allowed;
+                }
+            }
+        }
+        return dx;
+    }
+    
+    /**
+     * Sweeps a box vertically and stops it at the first solid cell it would enter.
+     *
+     * @param box The moving box (not modified)
+     * @param dy The requested movement along the Y-axis
+     * @param contact Filled with the contact normal and time of impact
+     * @return The distance the box can actually move
+     */
+    public double sweepY(AABB box, double dy, Contact contact) {
+        contact.clear();
+        if (dy == 0) {
+            return 0;
+        }
+        
+        // Columns the box spans (edges only touching a column don't count)
+        int firstCol = floorCell(box.getMinX() + EPSILON);
+        int lastCol = ceilCell(box.getMaxX() - EPSILON) - 1;
+        
+        if (dy > 0) {
+            // Rows the leading (bottom) edge passes into
+            int firstRow = ceilCell(box.getMaxY() - EPSILON);
+            int lastRow = ceilCell(box.getMaxY() + dy - EPSILON) - 1;
+            for (int y = firstRow; y <= lastRow; y++) {
+                if (isRowBlocked(y, firstCol, lastCol)) {
+                    double allowed = y * cellSize - box.getMaxY();
+                    contact.set(0, -1, allowed / dy);
+                    return allowed;
+                }
+            }
+        }
+        else {
+            // Rows the leading (top) edge passes into
+            int firstRow = floorCell(box.getMinY() + EPSILON) - 1;
+            int lastRow = floorCell(box.getMinY() + dy + EPSILON);
+            for (int y = firstRow; y >= lastRow; y--) {
+                if (isRowBlocked(y, firstCol, lastCol)) {
+                    double allowed = (y + 1) * cellSize - box.getMinY();
+                    contact.set(0, 1, allowed / dy);
+                    return allowed;
+                }
+            }
+        }
+        return dy;
+    }
+    
+    /**
+     * Whether any cell of a column between the two rows is solid.
+     */
+    private boolean isColumnBlocked(int x, int firstRow, int lastRow) {
+        for (int y = firstRow; y <= lastRow; y++) {
+            if (isSolid(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Whether any cell of a row between the two columns is solid.
+     */
+    private boolean isRowBlocked(int y, int firstCol, int lastCol) {
+        for (int x = firstCol; x <= lastCol; x++) {
+            if (isSolid(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private int floorCell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+    
+    private int ceilCell(double coordinate) {
+        return (int) Math.ceil(coordinate / cellSize);
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getCellSize() {
+        return cellSize;
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Result of a swept collision test: the surface normal that was hit and when.
+ * A single instance is reused every step so the game loop doesn't allocate.
+ */
+public final class Contact {
+    private boolean hit;
+    private double normalX;
+    private double normalY;
+    private double time;    // fraction (0 to 1) of the requested movement before impact
+    
+    /**
+     * Creates an empty contact (nothing hit).
+     */
+    public Contact() {
+        clear();
+    }
+    
+    /**
+     * Marks that nothing was hit.
+     */
+    public void clear() {
+        hit = false;
+        normalX = 0;
+        normalY = 0;
+        time = 1;
+    }
+    
+    /**
+     * Records a hit against a surface.
+     */
+    public void set(double normalX, double normalY, double time) {
+        this.hit = true;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.time = time;
+    }
+    
+    public boolean isHit() {
+        return hit;
+    }
+    
+    public double getNormalX() {
+        return normalX;
+    }
+    
+    public double getNormalY() {
+        return normalY;
+    }
+    
+    public double getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,146 @@
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import java.util.List;
+
+/**
+ * Draws every moving/collectible entity in view (coins, key, traps and the player) straight from
+ * the model onto one viewport-sized canvas each frame, instead of keeping a node per entity.
+ * Used as an alternative to the retained views (ItemView, TrapView, PlayerView) for rooms with
+ * very many entities. Collected items simply disappear here rather than playing their animation.
+ */
+public class EntityCanvas extends Canvas {
+    // Reused corner arrays for the trap triangles
+    private final double[] pointsX = new double[3];
+    private final double[] pointsY = new double[3];
+    
+    // Area being drawn (the viewport plus a tile all round)
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+    
+    /**
+     * Creates an empty canvas, it is sized to the viewport on every draw.
+     */
+    public EntityCanvas() {
+        setMouseTransparent(true);
+    }
+    
+    /**
+     * Clears the canvas and draws the current room's entities in one pass,
+     * grouped by colour so the drawing state only changes a few times.
+     *
+     * @param game The game to draw
+     * @param alpha How far (0 to 1) the render time is between the previous and current simulation step
+     * @param viewX Left edge of the viewport in room coordinates
+     * @param viewY Top edge of the viewport in room coordinates
+     * @param viewWidth Width of the viewport
+     * @param viewHeight Height of the viewport
+     */
+    public void draw(Game game, double alpha, double viewX, double viewY, double viewWidth, double viewHeight) {
+        if (getWidth() != viewWidth || getHeight() != viewHeight) {
+            setWidth(viewWidth);
+            setHeight(viewHeight);
+        }
+        
+        // The canvas sits over the viewport, entities outside it are skipped
+        setTranslateX(viewX);
+        setTranslateY(viewY);
+        minX = viewX - GameMap.TILE_SIZE;
+        minY = viewY - GameMap.TILE_SIZE;
+        maxX = viewX + viewWidth + GameMap.TILE_SIZE;
+        maxY = viewY + viewHeight + GameMap.TILE_SIZE;
+        
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, viewWidth, viewHeight);
+        gc.save();
+        gc.translate(-viewX, -viewY);
+        gc.setLineWidth(2);
+        
+        GameMap map = game.getCurrentMap();
+        drawCoins(gc, map.getCoins());
+        drawKey(gc, map.getKey());
+        drawTraps(gc, map.getTraps(), alpha, false, Color.BROWN);
+        drawTraps(gc, map.getTraps(), alpha, true, Color.SILVER);
+        drawPlayer(gc, game.getPlayer(), alpha);
+        gc.restore();
+    }
+    
+    /**
+     * Whether a point is close enough to the viewport to be drawn.
+     */
+    private boolean inView(double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+    
+    /**
+     * Draws the uncollected coins (same look as ItemView).
+     */
+    private void drawCoins(GraphicsContext gc, List<Coin> coins) {
+        gc.setFill(Color.GOLD);
+        gc.setStroke(Color.DARKGOLDENROD);
+        for (int i = 0; i < coins.size(); i++) {
+            Coin coin = coins.get(i);
+            if (coin.isCollected() || !inView(coin.getCenterX(), coin.getCenterY())) {
+                continue;
+            }
+            double radius = coin.getRadius();
+            gc.fillOval(coin.getCenterX() - radius, coin.getCenterY() - radius, radius * 2, radius * 2);
+            gc.strokeOval(coin.getCenterX() - radius, coin.getCenterY() - radius, radius * 2, radius * 2);
+        }
+    }
+    
+    /**
+     * Draws the key if it is still to be collected (same look as ItemView).
+     */
+    private void drawKey(GraphicsContext gc, Key key) {
+        if (key == null || key.isCollected()) {
+            return;
+        }
+        double x = key.getCenterX() - key.getWidth()/2;
+        double y = key.getCenterY() - key.getHeight()/2;
+        double arc = GameMap.TILE_SIZE * 0.5;
+        
+        gc.setFill(Color.GOLD);
+        gc.setStroke(Color.DARKORANGE);
+        gc.fillRoundRect(x, y, key.getWidth(), key.getHeight(), arc, arc);
+        gc.strokeRoundRect(x, y, key.getWidth(), key.getHeight(), arc, arc);
+    }
+    
+    /**
+     * Draws either the static or the moving traps as triangles (same look as TrapView).
+     */
+    private void drawTraps(GraphicsContext gc, List<Trap> traps, double alpha, boolean moving, Color fill) {
+        gc.setFill(fill);
+        gc.setStroke(Color.BLACK);
+        for (int i = 0; i < traps.size(); i++) {
+            Trap trap = traps.get(i);
+            if ((trap instanceof MovingSpike) != moving || !inView(trap.getCenterX(), trap.getCenterY())) {
+                continue;
+            }
+            double centerX = trap.getRenderX(alpha);
+            double centerY = trap.getCenterY();
+            double half = trap.getSize() / 2;
+            
+            pointsX[0] = centerX - half;    // Bottom left
+            pointsY[0] = centerY + half;
+            pointsX[1] = centerX + half;    // Bottom right
+            pointsY[1] = centerY + half;
+            pointsX[2] = centerX;           // Top point
+            pointsY[2] = centerY - half;
+            
+            gc.fillPolygon(pointsX, pointsY, 3);
+            gc.strokePolygon(pointsX, pointsY, 3);
+        }
+    }
+    
+    /**
+     * Draws the player (same look as PlayerView).
+     */
+    private void drawPlayer(GraphicsContext gc, Player player, double alpha) {
+        double radius = player.getRadius();
+        gc.setFill(Color.RED);
+        gc.fillOval(player.getRenderX(alpha) - radius, player.getRenderY(alpha) - radius, radius * 2, radius * 2);
+    }
+}
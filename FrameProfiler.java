@@ -0,0 +1,161 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Times each phase of a simulation step and of a frame into its own latency histogram,
+ * so a spike in any one phase shows up in its p99/max rather than being averaged away.
+ * Nothing is timed (not even System.nanoTime called) until the profiler is enabled.
+ *
+ * A phase is timed with lap(), which records the time since the last lap and starts the next one:
+ * <pre>
+ *     long t = profiler.start();
+ *     doFirstPhase();
+ *     t = profiler.lap(FrameProfiler.FIRST_PHASE, t);
+ * </pre>
+ */
+public class FrameProfiler {
+    // Phases of Game.update
+    public static final int PLAYER = 0;
+    public static final int COLLISIONS = 1;
+    public static final int TRAPS = 2;
+    public static final int OUT_OF_BOUNDS = 3;
+    public static final int COINS = 4;
+    public static final int KEY = 5;
+    public static final int EXIT = 6;
+    public static final int UPDATE = 7;         // the whole of one Game.update
+    
+    // Phases of a frame on the JavaFX thread
+    public static final int SCENE_CHANGE = 8;
+    public static final int RENDER = 9;
+    public static final int UPDATE_UI = 10;
+    public static final int LAYOUT = 11;        // the scene's CSS and layout pass
+    public static final int PULSE = 12;         // the pulse's work from the game loop to the end of layout
+    
+    private static final String[] PHASE_NAMES = {
+        "Player", "Collisions", "Traps", "OutOfBounds", "Coins", "Key", "Exit", "Update",
+        "SceneChange", "Render", "UpdateUI", "Layout", "Pulse"
+    };
+    public static final String PROFILES_DIR = "Profiles";
+    
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASE_NAMES.length];
+    private boolean enabled;
+    
+    /**
+     * Creates a profiler with an empty histogram per phase, disabled to start with.
+     */
+    public FrameProfiler() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+    
+    /**
+     * Starts timing a phase.
+     *
+     * @return The current time, or 0 when the profiler is off
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Records the time since a phase started and starts timing the next one.
+     *
+     * @param phase The phase that just finished
+     * @param startNanos What start() (or the previous lap) returned
+     * @return The current time, to pass to the next lap
+     */
+    public long lap(int phase, long startNanos) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (startNanos != 0) {
+            histograms[phase].record(now - startNanos);
+        }
+        return now;
+    }
+    
+    /**
+     * Turns timing on or off (what has been recorded is kept).
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Whether the phases are being timed.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Clears every histogram.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+    
+    /**
+     * The histogram of one phase.
+     */
+    public LatencyHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+    
+    /**
+     * A table of p50, p99 and max (in milliseconds) for every phase timed so far, for the overlay.
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(String.format("%-12s %8s %8s %8s%n", "Phase (ms)", "p50", "p99", "max"));
+        for (int i = 0; i < histograms.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            if (histogram.getCount() > 0) {
+                summary.append(String.format("%-12s %8.3f %8.3f %8.3f%n", PHASE_NAMES[i],
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6));
+            }
+        }
+        return summary.toString();
+    }
+    
+    /**
+     * Writes every phase's count, mean, p50, p99, p99.9 and max (in microseconds) as CSV.
+     *
+     * @param file The file to write (replaced if it exists)
+     * @throws IOException If the file could not be written
+     */
+    public void writeReport(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println("phase,count,mean_us,p50_us,p99_us,p999_us,max_us");
+            for (int i = 0; i < histograms.length; i++) {
+                LatencyHistogram histogram = histograms[i];
+                out.printf("%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", PHASE_NAMES[i], histogram.getCount(),
+                    histogram.getMean() / 1e3, histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                    histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+            }
+        }
+    }
+    
+    /**
+     * Writes the report to a new time-stamped file in the Profiles directory.
+     *
+     * @return The file written
+     * @throws IOException If the file could not be written
+     */
+    public File exportReport() throws IOException {
+        File dir = new File(PROFILES_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir.getPath());
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(dir, "profile-" + stamp + ".csv");
+        writeReport(file);
+        return file;
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Game class represents the model component of the game.
@@ -9,23 +10,41 @@ public class Game {
     public static final int NO_OF_SCREENS = 6;
     private static final int INITIAL_TIME = 120;
     
+    // Flags for the parts of the state shown by the HUD, set when they change (see takeChanges)
+    public static final int COINS_CHANGED = 1;
+    public static final int HEALTH_CHANGED = 2;
+    public static final int KEY_CHANGED = 4;
+    public static final int TIME_CHANGED = 8;
+    public static final int ALL_CHANGED = COINS_CHANGED | HEALTH_CHANGED | KEY_CHANGED | TIME_CHANGED;
+    
     // Game state
     private Player player;
     private GameMap[] levelMaps;
     private int coinCount;
     private int index;
     private boolean keyCollected = false;
-    private int timeRemaining = INITIAL_TIME; // 2 minutes
     private boolean isPaused = false;
+    private boolean timeUp = false;
+    
+    // Game time, advanced by every update (so it stops while paused), with the countdown scheduled on it
+    private final GameClock clock = new GameClock();
+    private int changes = ALL_CHANGED;  // what changed since the HUD last took the changes
     
     // References to current level elements
     private Tile[][] tiles;
     private List<Coin> coins;
     private List<Trap> traps;
-    private List<Tile> turns;
+    private TrapIndex trapIndex;
+    private TriggerIndex triggerIndex;
     private Key key;
     private Tile exit;
     
+    // Reused result of the swept collision tests
+    private final Contact contact = new Contact();
+    private int nearbyTrapCount;    // traps tested exactly in the last step (for the tick event)
+    
+    // Times the phases of each update (off unless the profiler overlay is shown)
+    private final FrameProfiler profiler = new FrameProfiler();
     
     // Level management
     private LevelManager levelManager;
@@ -38,20 +57,66 @@ public class Game {
     }
     
     /**
-     * Reset the game to its initial state
+     * Creates a game played on the given rooms rather than a generated level (i.e for benchmarks).
+     * 
+     * @param levelMaps The rooms of the level, in order
+     */
+    public Game(GameMap[] levelMaps) {
+        start(levelMaps);
+    }
+    
+    /**
+     * Reset the game to its initial state.
+     * The rooms are reshuffled into a new level, reusing (and resetting) rooms already built.
      */
     public void reset() {
-        levelManager = new LevelManager();
-        levelMaps = levelManager.generateLevel();
+        start(generateLevelAsync().join());
+    }
+    
+    /**
+     * Starts building a new level on the worker threads, without waiting for it.
+     * Pass the rooms to start() once they are ready, the current game must not be updated until then
+     * (its rooms may be reset for reuse).
+     * 
+     * @return A future that completes with the rooms of the new level, in order
+     */
+    public CompletableFuture<GameMap[]> generateLevelAsync() {
+        if (levelManager == null) {
+            levelManager = new LevelManager();
+        }
+        return levelManager.generateLevelAsync();
+    }
+    
+    /**
+     * Starts a new game on the given rooms.
+     * 
+     * @param levelMaps The rooms of the level, in order
+     */
+    public void start(GameMap[] levelMaps) {
+        this.levelMaps = levelMaps;
         index = 0;
         coinCount = 0;
         keyCollected = false;
-        timeRemaining = INITIAL_TIME;
         isPaused = false;
+        changes = ALL_CHANGED;
+        
+        // Countdown of INITIAL_TIME (2 minutes) of game time, the HUD's time shown updating every second
+        timeUp = false;
+        clock.reset();
+        clock.scheduleRepeating(1, () -> changes |= TIME_CHANGED);
+        clock.schedule(INITIAL_TIME, () -> {
+            timeUp = true;
+            changes |= TIME_CHANGED;
+        });
         
-        // Initialize player and current level elements
+        // Initialize player and current level elements (the player is reused after the first game)
         updateCurrentLevelElements();
-        player = new Player(levelMaps[index].getPlayerX(), levelMaps[index].getPlayerY(), levelMaps[index].getPlayerRadius()*0.9);
+        if (player == null) {
+            player = new Player(levelMaps[index].getPlayerX(), levelMaps[index].getPlayerY(), levelMaps[index].getPlayerRadius()*0.9);
+        }
+        else {
+            player.reset(levelMaps[index].getPlayerX(), levelMaps[index].getPlayerY());
+        }
         setPaused(false);
     }
     
@@ -62,7 +127,8 @@ public class Game {
         tiles = levelMaps[index].getTile();
         coins = levelMaps[index].getCoins();
         traps = levelMaps[index].getTraps();
-        turns = levelMaps[index].getTurns();
+        trapIndex = levelMaps[index].getTrapIndex();
+        triggerIndex = levelMaps[index].getTriggerIndex();
         key = levelMaps[index].getKey();
         exit = levelMaps[index].getExit();
     }
@@ -74,80 +140,59 @@ public class Game {
     public void update(double deltaTime) {
         if (isPaused) return;
         
+        GameEvents.TickEvent tick = new GameEvents.TickEvent();
+        tick.begin();
+        clock.advance(deltaTime);
+        long start = profiler.start();
         player.update(deltaTime);
+        long time = profiler.lap(FrameProfiler.PLAYER, start);
+        movePlayer(deltaTime);
+        time = profiler.lap(FrameProfiler.COLLISIONS, time);
         checkTraps(deltaTime); 
-        checkCollisions();
+        time = profiler.lap(FrameProfiler.TRAPS, time);
         checkOutOfBounds();
+        time = profiler.lap(FrameProfiler.OUT_OF_BOUNDS, time);
+        triggerIndex.update(player.getBounds());
         checkCoins();
+        time = profiler.lap(FrameProfiler.COINS, time);
         checkKey();
+        time = profiler.lap(FrameProfiler.KEY, time);
         checkExit();
+        profiler.lap(FrameProfiler.EXIT, time);
+        profiler.lap(FrameProfiler.UPDATE, start);
+        
+        if (tick.shouldCommit()) {
+            tick.room = index;
+            tick.coins = coins.size();
+            tick.traps = traps.size();
+            tick.nearbyTraps = nearbyTrapCount;
+            tick.commit();
+        }
     }
     
     /**
-     * Checks for collisions between player and solid tiles
+     * Moves the player by its velocity, sweeping against solid tiles so it stops at the first one in its path
+     * (one axis at a time, however far it travels in a step).
      */
-    private void checkCollisions() {
-        boolean onPlatform = false;
+    private void movePlayer(double deltaTime) {
+        CollisionWorld world = levelMaps[index].getCollisionWorld();
         
-        List<Tile> collisionTiles = levelMaps[index].getTerrainTiles();
+        // Horizontal movement
+        double moveX = world.sweepX(player.getBounds(), player.getDisplacementX(deltaTime), contact);
+        player.setCenterX(player.getCenterX() + moveX);
+        if (contact.isHit()) {
+            player.stopHorizontalMovement();
+        }
         
-        for (Tile terrain : collisionTiles) {
-
-            // Check if the player is interacting with this terrain tile
-            if (player.getBoundsInParent().intersects(terrain.getBoundsInParent())) {
-                // We find the overlap in the X-axis, this is done by:
-                // So we find the minimum X-value that dictates the right side of either the player or tile
-                // We find the maximum X-value that dictates the left side of the either the player or tile
-                // We then find the difference between these values to get the overlap
-                double overlapLeft = Math.min(
-                    player.getBoundsInParent().getMaxX(), 
-                    terrain.getBoundsInParent().getMaxX()
-                ) - Math.max(
-                    player.getBoundsInParent().getMinX(), 
-                    terrain.getBoundsInParent().getMinX()
-                );
-                
-                // Same calculation as above, but now we are looking at the Y-values
-                double overlapTop = Math.min(
-                    player.getBoundsInParent().getMaxY(), 
-                    terrain.getBoundsInParent().getMaxY()
-                ) - Math.max(
-                    player.getBoundsInParent().getMinY(), 
-                    terrain.getBoundsInParent().getMinY()
-                );
-                
-                // We decide what axis the collision is taking place
-                // If the difference for the Y-axis is greater than the X-axis
-                if (overlapLeft < overlapTop) {
-                    // There must be a collision in the X-axis (horizontal) as the differences are negative
-                    
-                    if (player.getCenterX() < terrain.getBoundsInParent().getCenterX()) {
-                        // Collision from left
-                        player.setCenterX(terrain.getBoundsInParent().getMinX() - player.getRadius());
-                        player.stopHorizontalMovement();
-                    } else {
-                        // Collision from right
-                        player.setCenterX(terrain.getBoundsInParent().getMaxX() + player.getRadius());
-                        player.stopHorizontalMovement();
-                    }
-                } else {
-                    // Vertical collision (Y-axis)
-                    if (player.getCenterY() < terrain.getBoundsInParent().getCenterY()) {
-                        // Collision from top
-                        player.setCenterY(terrain.getBoundsInParent().getMinY() - player.getRadius());
-                        player.stopVerticalMovement();
-                        onPlatform = true;
-                    } else {
-                        // Collision from bottom
-                        player.setCenterY(terrain.getBoundsInParent().getMaxY() + player.getRadius());
-                        player.stopVerticalMovement();
-                    }
-                }
-            }
+        // Vertical movement
+        double moveY = world.sweepY(player.getBounds(), player.getDisplacementY(deltaTime), contact);
+        player.setCenterY(player.getCenterY() + moveY);
+        if (contact.isHit()) {
+            player.stopVerticalMovement();
         }
         
-        // Ensure player's ground state is accurately set
-        player.setIsOnGround(onPlatform);
+        // Player is only grounded when the surface it hit faces upwards
+        player.setIsOnGround(contact.isHit() && contact.getNormalY() < 0);
     }
     
     /**
@@ -169,7 +214,7 @@ public class Game {
             player.setCenterX(tileSize + player.getRadius());
         }
         else if (player.getCenterX() > levelWidth && index==NO_OF_SCREENS-1){
-            player.setCenterY(levelWidth - tileSize - player.getRadius());
+            player.setCenterX(levelWidth - tileSize - player.getRadius());
         }
         
         // Checks for transition of game scene
@@ -177,25 +222,41 @@ public class Game {
             
             if (player.getCenterX() < 0) {
                 index--;
-                player.setCenterX((levelWidth) + player.getCenterX());
+                // Comes in at the right edge of the room entered, which may be a different width
+                player.setCenterX(levelMaps[index].getWidth() * tileSize + player.getCenterX());
             }
             else {
                 index++;
                 player.setCenterX((player.getCenterX() - (levelWidth)));
             }
             
+            // Rooms can be different heights, so keep the player above the floor of a shorter room
+            int enteredHeight = levelMaps[index].getHeight() * tileSize;
+            if (player.getCenterY() + player.getRadius() > enteredHeight - tileSize) {
+                player.setCenterY(enteredHeight - tileSize - player.getRadius());
+            }
+            
+            // Don't blend the render position across the jump to the other side of the room
+            player.resetInterpolation();
+            
             updateCurrentLevelElements();
         }
     }
     
     /**
-     * Check if player has collected any coins
+     * Check if player has collected any of the coins next to them
      */
     private void checkCoins() {
-        for (Coin coin : coins) {
-            if (!coin.isCollected() && coin.checkCollection(player)) {
+        // Backwards, as collected coins leave the list
+        List<Coin> nearbyCoins = triggerIndex.getNearbyCoins();
+        for (int i = nearbyCoins.size() - 1; i >= 0; i--) {
+            Coin coin = nearbyCoins.get(i);
+            if (coin.checkCollection(player)) {
                 coin.collect();
+                triggerIndex.remove(coin);
                 coinCount++;
+                changes |= COINS_CHANGED;
+                recordPickup("Coin");
             }
         }
     }
@@ -204,26 +265,40 @@ public class Game {
      * Check if player has collected the key
      */
     private void checkKey() {
-        // Checks if the key exists in the level or the player already obtained it
-        if (key != null && !key.isCollected()) {
-            if (key.checkCollection(player)) {
-                // Checks if the player has sufficent funds to 'buy' the key
-                if (coinCount >= key.getRequiredCoins()) {
-                    key.collect();
-                    keyCollected = true;
-                    coinCount -= key.getRequiredCoins();
-                }
+        // Only tested while the key is still in the index and next to the player
+        if (triggerIndex.isNearKey() && key.checkCollection(player)) {
+            // Checks if the player has sufficent funds to 'buy' the key
+            if (coinCount >= key.getRequiredCoins()) {
+                key.collect();
+                triggerIndex.remove(key);
+                keyCollected = true;
+                coinCount -= key.getRequiredCoins();
+                changes |= KEY_CHANGED | COINS_CHANGED;
+                recordPickup("Key");
             }
         }
     }
     
+    /**
+     * Emits a flight recorder event for an item the player just collected.
+     */
+    private void recordPickup(String item) {
+        GameEvents.PickupEvent event = new GameEvents.PickupEvent();
+        if (event.shouldCommit()) {
+            event.item = item;
+            event.room = index;
+            event.coinCount = coinCount;
+            event.commit();
+        }
+    }
+    
     /**
      * Check if the exit exists and the key is collected,
-     * then updates the exit tile sprite 
+     * then opens the exit (the tile only changes the first time)
      */
     private void checkExit() {
-        if (exit != null && keyCollected) {
-            levelMaps[index].updateExit();
+        if (exit != null && keyCollected && !exit.isOpen()) {
+            levelMaps[index].openExit();
         }
     }
     
@@ -231,35 +306,68 @@ public class Game {
      * Check if player has been hit by a trap.
      */
     private void checkTraps(double deltaTime) {
-        for (Trap trap : traps) {
+        if (!player.checkAlive()){
+            return;
+        }
+        
+        // Exact collision tests only for the traps sharing a cell with the player
+        List<Trap> nearbyTraps = trapIndex.query(player.getBounds());
+        nearbyTrapCount = nearbyTraps.size();
+        int health = player.getHealth();
+        for (int i = 0; i < nearbyTraps.size(); i++) {
+            nearbyTraps.get(i).checkInteraction(player);
+            if (player.getHealth() != health) {
+                changes |= HEALTH_CHANGED;
+            }
             if (!player.checkAlive()){
+                recordDeath(nearbyTraps.get(i));
                 return;
             }
+        }
+        
+        // Every trap's timers keep running, wherever it is
+        for (int i = 0; i < traps.size(); i++) {
+            Trap trap = traps.get(i);
+            trap.advance(deltaTime);    // moving spikes turn at their precomputed patrol ends
             
-            // Invokes additional updates for moving spikes
+            // Moving spikes change bucket only when they cross into another cell
             if (trap instanceof MovingSpike){
-                for (Tile point: turns){
-                    MovingSpike movingSpike = (MovingSpike) trap;
-                    if (movingSpike.getBoundsInParent().intersects(point.getBoundsInParent())){
-                        movingSpike.turn();
-                        break;
-                    }
-                }
+                trapIndex.moved(i);
             }
-            
-            trap.update(player, deltaTime);
         }
     }
     
+    /**
+     * Emits a flight recorder event for the player being killed by a trap.
+     */
+    private void recordDeath(Trap trap) {
+        GameEvents.DeathEvent event = new GameEvents.DeathEvent();
+        if (event.shouldCommit()) {
+            event.room = index;
+            event.cause = trap.getClass().getSimpleName();
+            event.x = player.getCenterX();
+            event.y = player.getCenterY();
+            event.timeRemaining = getTimeRemaining();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Whether the player is standing in the exit with the key (the game is won).
+     */
+    public boolean isExitReached() {
+        return keyCollected && triggerIndex.isNearExit() && player.getBounds().intersects(exit.getBounds());
+    }
+    
     /**
      * Calculate score (based on time, coins and health).
      * @return  A score calculated based on performance in game  
      */
     public int calculateScore(){
-        if (!player.checkAlive() || (timeRemaining <= 0)){
+        if (!player.checkAlive() || timeUp){
             return 0;
         }
-        int timeBonus = timeRemaining * 10;
+        int timeBonus = getTimeRemaining() * 10;
         int coinBonus = coinCount * 50;
         int healthBonus = player.getHealth() * 5;
         
@@ -269,16 +377,15 @@ public class Game {
     }
     
     /**
-     * Decrement the timer by 1 second
-     * @return true if time remains, false if time is up
+     * Returns what has changed (COINS_CHANGED, HEALTH_CHANGED, KEY_CHANGED and TIME_CHANGED flags)
+     * since the last call, and clears the flags. Everything is flagged after a reset.
+     * 
+     * @return The changed flags or'ed together, 0 if nothing changed
      */
-    public boolean decrementTimer() {
-        if (isPaused) {
-            return true;
-        }
-        
-        timeRemaining--;
-        return timeRemaining > 0;
+    public int takeChanges() {
+        int taken = changes;
+        changes = 0;
+        return taken;
     }
     
     // Getters and setters
@@ -304,6 +411,20 @@ public class Game {
         return levelMaps[index];
     }
     
+    /**
+     * Number of rooms built so far, including ones kept from earlier games.
+     */
+    public int getRoomsLoaded() {
+        return levelManager != null ? levelManager.getBuiltRoomCount() : levelMaps.length;
+    }
+    
+    /**
+     * Every room of the level, in order.
+     */
+    public GameMap[] getLevelMaps() {
+        return levelMaps;
+    }
+    
     /**
      * All tiles in current level.
      */
@@ -332,6 +453,13 @@ public class Game {
         return key;
     }
     
+    /**
+     * Profiler timing the phases of each update (and of each frame, for the screen drawing the game).
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+    
     /**
      * Exit tile in current level.
      */
@@ -354,10 +482,31 @@ public class Game {
     }
     
     /**
-     * Remaining time (in seconds).
+     * Remaining time in whole seconds (rounded up, so it shows 0 only once time is up).
      */
     public int getTimeRemaining() {
-        return timeRemaining;
+        return (int) Math.ceil(getTimeRemainingSeconds());
+    }
+    
+    /**
+     * Remaining time in seconds, to the simulation step.
+     */
+    public double getTimeRemainingSeconds() {
+        return timeUp ? 0 : Math.max(0, INITIAL_TIME - clock.getTime());
+    }
+    
+    /**
+     * Whether the countdown has run out.
+     */
+    public boolean isTimeUp() {
+        return timeUp;
+    }
+    
+    /**
+     * The game's clock (game time so far, and for scheduling callbacks in game time).
+     */
+    public GameClock getClock() {
+        return clock;
     }
     
     /**
@@ -372,6 +521,7 @@ public class Game {
      */
     public void setPaused(boolean paused) {
         this.isPaused = paused;
+        clock.setPaused(paused);
         if (paused) {
             player.resetInputState();
         }
@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The game's own clock: game time only moves forward when the game loop advances it by a
+ * simulation step, so it stops while the game is paused and can never drift from the simulation.
+ * Callbacks can be scheduled at a game time (once or repeating), and run during the step that reaches it.
+ */
+public class GameClock {
+    // Steps like 1/60 s don't add up to exactly a second, so callbacks this close to a step's end run in it
+    private static final double TOLERANCE = 1e-9;
+    
+    private double time = 0;        // seconds of game time so far
+    private boolean paused = false;
+    
+    // Pending callbacks, soonest first
+    private final List<Scheduled> scheduled = new ArrayList<>();
+    
+    /**
+     * A callback waiting for its time, which can be cancelled.
+     */
+    public static final class Scheduled {
+        private final Runnable action;
+        private final double interval;  // 0 if it only runs once
+        private double dueTime;
+        
+        private Scheduled(Runnable action, double dueTime, double interval) {
+            this.action = action;
+            this.dueTime = dueTime;
+            this.interval = interval;
+        }
+        
+        /**
+         * Game time at which the callback next runs.
+         */
+        public double getDueTime() {
+            return dueTime;
+        }
+    }
+    
+    /**
+     * Moves game time forward by one step, running every callback that falls due on the way in time order.
+     * While a callback runs, getTime() is the time it was due. Does nothing while paused.
+     *
+     * @param deltaTime Length of the step in seconds (negative steps are ignored, time never goes back)
+     */
+    public void advance(double deltaTime) {
+        if (paused || deltaTime <= 0) {
+            return;
+        }
+        double target = time + deltaTime;
+        
+        while (!scheduled.isEmpty() && scheduled.get(0).dueTime <= target + TOLERANCE) {
+            Scheduled next = scheduled.remove(0);
+            time = Math.max(time, next.dueTime);
+            if (next.interval > 0) {
+                // Repeats from when it was due rather than when it ran, so it never drifts
+                next.dueTime += next.interval;
+                insert(next);
+            }
+            next.action.run();
+        }
+        time = target;
+    }
+    
+    /**
+     * Runs a callback once, after a delay of game time.
+     *
+     * @param delay Seconds of game time from now
+     * @param action What to run
+     * @return The callback, for cancelling it
+     */
+    public Scheduled schedule(double delay, Runnable action) {
+        Scheduled callback = new Scheduled(action, time + Math.max(0, delay), 0);
+        insert(callback);
+        return callback;
+    }
+    
+    /**
+     * Runs a callback every interval of game time, the first time one interval from now.
+     *
+     * @param interval Seconds of game time between runs (more than 0)
+     * @param action What to run
+     * @return The callback, for cancelling it
+     */
+    public Scheduled scheduleRepeating(double interval, Runnable action) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        Scheduled callback = new Scheduled(action, time + interval, interval);
+        insert(callback);
+        return callback;
+    }
+    
+    /**
+     * Stops a scheduled callback from running (again).
+     */
+    public void cancel(Scheduled callback) {
+        scheduled.remove(callback);
+    }
+    
+    /**
+     * Keeps the pending callbacks in due order (callbacks due at the same time run in the order scheduled).
+     */
+    private void insert(Scheduled callback) {
+        int i = scheduled.size();
+        while (i > 0 && scheduled.get(i - 1).dueTime > callback.dueTime) {
+            i--;
+        }
+        scheduled.add(i, callback);
+    }
+    
+    /**
+     * Sets the time back to 0 and drops every scheduled callback.
+     */
+    public void reset() {
+        time = 0;
+        paused = false;
+        scheduled.clear();
+    }
+    
+    /**
+     * Seconds of game time so far.
+     */
+    public double getTime() {
+        return time;
+    }
+    
+    /**
+     * Stops (or restarts) game time, steps given to advance while paused are ignored.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+    
+    /**
+     * Whether game time is stopped.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+}
@@ -0,0 +1,153 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the game, so a recording shows game activity
+ * (ticks, room loads, room changes, pickups, deaths) next to GC pauses, JIT and the rest.
+ * They cost nothing unless a recording has them enabled, i.e:
+ *   java -XX:StartFlightRecording=filename=game.jfr,settings=profile Main
+ * and appear under "Super Lario" in JDK Mission Control.
+ */
+public final class GameEvents {
+    
+    private GameEvents() {
+    }
+    
+    /**
+     * One fixed simulation step (Game.update).
+     */
+    @Name("superlario.Tick")
+    @Label("Game Tick")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class TickEvent extends Event {
+        @Label("Room")
+        public int room;
+        
+        @Label("Coins")
+        @Description("Coins in the room, collected or not")
+        public int coins;
+        
+        @Label("Traps")
+        public int traps;
+        
+        @Label("Nearby Traps")
+        @Description("Traps sharing a cell with the player (the ones tested exactly)")
+        public int nearbyTraps;
+    }
+    
+    /**
+     * A room being built from its layout, or reset if it was built before.
+     */
+    @Name("superlario.MapLoad")
+    @Label("Map Load")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class MapLoadEvent extends Event {
+        @Label("Room Name")
+        public String name;
+        
+        @Label("Reused")
+        @Description("Whether an already built room was reset instead of building a new one")
+        public boolean reused;
+        
+        @Label("Width")
+        public int width;
+        
+        @Label("Height")
+        public int height;
+        
+        @Label("Coins")
+        public int coins;
+        
+        @Label("Traps")
+        public int traps;
+    }
+    
+    /**
+     * A whole level being generated (from picking the rooms until every room is loaded).
+     */
+    @Name("superlario.GenerateLevel")
+    @Label("Generate Level")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class GenerateLevelEvent extends Event {
+        @Label("Rooms")
+        public int rooms;
+        
+        @Label("Reused Rooms")
+        public int reusedRooms;
+    }
+    
+    /**
+     * The screen swapping to the room the player walked into.
+     */
+    @Name("superlario.RoomTransition")
+    @Label("Room Transition")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class RoomTransitionEvent extends Event {
+        @Label("From Room")
+        public int fromRoom;
+        
+        @Label("To Room")
+        public int toRoom;
+        
+        @Label("Pre-warmed")
+        @Description("Whether the room's pane was already laid out in the viewport")
+        public boolean prewarmed;
+        
+        @Label("Coins")
+        public int coins;
+        
+        @Label("Traps")
+        public int traps;
+    }
+    
+    /**
+     * The player collecting a coin or the key.
+     */
+    @Name("superlario.Pickup")
+    @Label("Pickup")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class PickupEvent extends Event {
+        @Label("Item")
+        public String item;
+        
+        @Label("Room")
+        public int room;
+        
+        @Label("Coin Count")
+        @Description("Coins held after the pickup")
+        public int coinCount;
+    }
+    
+    /**
+     * The player being killed.
+     */
+    @Name("superlario.Death")
+    @Label("Death")
+    @Category("Super Lario")
+    @StackTrace(false)
+    public static class DeathEvent extends Event {
+        @Label("Room")
+        public int room;
+        
+        @Label("Cause")
+        public String cause;
+        
+        @Label("X")
+        public double x;
+        
+        @Label("Y")
+        public double y;
+        
+        @Label("Time Remaining")
+        public int timeRemaining;
+    }
+}
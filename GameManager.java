@@ -10,6 +10,7 @@ public class GameManager {
     private final GameOverScreen gameOverScreen;
     private final GameScreen gameScreen;    
     private final PauseScreen pauseScreen;
+    private final GameMetrics metrics;
     
     private Scene gameScene;
     
@@ -29,6 +30,11 @@ public class GameManager {
         gameOverScreen = new GameOverScreen(this, 600, 600);
         gameScreen = new GameScreen(this, 900, 690);
         pauseScreen = new PauseScreen(this, gameScreen, 900, 690);
+        
+        // Live metrics and controls for JMX tools
+        metrics = new GameMetrics(this);
+        gameScreen.setMetrics(metrics);
+        metrics.register();
     }    
     
     /**
@@ -39,7 +45,6 @@ public class GameManager {
             gameScreen.reset();
             gameScene = gameScreen.getScene();
             changeScene(gameScene);
-            gameScreen.startCountdown();
         }
         else if (resume == true) {
             gameScreen.changePauseTimer();
@@ -93,4 +98,21 @@ public class GameManager {
     public void pauseGame(){
         pauseScreen.showPauseScreen();
     }
+    
+    /**
+     * Pauses the game if one is being played (used by the JMX pause operation).
+     */
+    public void forcePause(){
+        if (gameScene != null && stage.getScene() == gameScene && !gameScreen.isCompleted() && !gameScreen.isPaused()) {
+            gameScreen.pauseGame();
+        }
+    }
+    
+    /**
+     * Abandons whatever is showing and starts a new game (used by the JMX reset operation).
+     */
+    public void forceReset(){
+        pauseScreen.hidePauseScreen();
+        startGame(false);
+    }
 }
@@ -1,22 +1,15 @@
-import javafx.scene.layout.Pane;
-import javafx.scene.image.ImageView;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * GameMap class handles the creation and management of the game's tile-based world.
- * It reads a level definition file and creates the appropriate tiles in a GridPane.
+ * It creates the tiles and entities laid out by a room template (parsed from a level file or the level pack).
+ * This is plain model state (no JavaFX), MapView draws it.
  */
 public class GameMap {
     // Constants for tile dimensions
     public static final int TILE_SIZE = 30;
     
-    // The main container for all tiles
-    private final Pane mapPane;
-    
     // Map dimensions
     private int width;
     private int height;
@@ -26,19 +19,17 @@ public class GameMap {
     private int playerY;
     private int playerRadius;
     
-    // Exit location
-    private int exitX;
-    private int exitY;
-    
     // Storage for game entities
     private Tile[][] tiles;
-    private Player player;
     private List<Coin> coins;
-    private List<Tile> terrainTiles;
+    private List<Tile> mutableTiles;
     private List<Trap> traps;
     private Key key;
     private Tile exit;
-    private List<Tile> turns;
+    private CollisionWorld collisionWorld;
+    private TrapIndex trapIndex;
+    private TriggerIndex triggerIndex;
+    private final RoomTemplate template;
     
     /**
      * Creates a new GameMap and loads from the specified level file.
@@ -46,201 +37,154 @@ public class GameMap {
      * @param levelFilePath Path to the level definition file
      */
     public GameMap(String levelFilePath) {
-        mapPane = new Pane();
-        
-        coins = new ArrayList<>();
-        terrainTiles = new ArrayList<>();
-        traps = new ArrayList<>();
-        turns = new ArrayList<>();
-        
-        loadLevelFromFile(levelFilePath);
+        this(RoomTemplate.parse(levelFilePath));
     }
     
     /**
-     * Reads the level file and creates the appropriate game objects.
+     * Creates a new GameMap laid out by a parsed room.
      * 
-     * @param levelFilePath Path to the level definition file
+     * @param template The room's layout
      */
-    private void loadLevelFromFile(String levelFilePath) {
-        File levelFile = new File(levelFilePath);
-        List<String> lines = new ArrayList<>();
+    public GameMap(RoomTemplate template) {
+        this.template = template;
+        coins = new ArrayList<>();
+        mutableTiles = new ArrayList<>();
+        traps = new ArrayList<>();
         
-        // First read all lines to determine map dimensions
-        try (Scanner scanner = new Scanner(levelFile)) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (!line.isEmpty()) {
-                    lines.add(line);
-                }
-            }
-        } catch (FileNotFoundException e) {
-            System.err.println("Error: Level file not found: " + levelFilePath);
-            e.printStackTrace();
-            return;
-        }
+        width = template.getWidth();
+        height = template.getHeight();
+        
+        createTiles();
+        createEntities();
         
-        // Set map dimensions
-        height = lines.size();
-        width = 0;
-        for (String line : lines) {
-            width = Math.max(width, line.length());
+        // Solid cells for swept collision
+        boolean[][] solid = new boolean[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                solid[x][y] = tiles[x][y] != null && !tiles[x][y].isPassable();
+            }
         }
+        collisionWorld = new CollisionWorld(solid, width, height, TILE_SIZE);
         
+        // Cell buckets for finding the traps near the player
+        trapIndex = new TrapIndex(traps, width, height, TILE_SIZE);
         
-        // Initialize the tile array
+        // Cell buckets for the pickups and exit, so they are only tested when the player is next to them
+        triggerIndex = new TriggerIndex(coins, key, exit, width, height, TILE_SIZE);
+    }
+    
+    /**
+     * Creates the tile grid (terrain, background and exit tiles).
+     */
+    private void createTiles() {
         tiles = new Tile[width][height];
-        
-        // Create tiles based on level file
-        for (int y = 0; y < lines.size(); y++) {
-            String line = lines.get(y);
-            for (int x = 0; x < line.length(); x++) {
-                char tileChar = line.charAt(x);
-                if (tileChar == 'E') {
-                    createTile(x, y, ' ');
-                }
-                else {
-                    createTile(x, y, tileChar);  
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                switch (template.getTile(x, y)) {
+                    case RoomTemplate.TERRAIN:
+                        tiles[x][y] = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "TERRAIN");
+                        break;
+                    
+                    case RoomTemplate.EXIT:
+                        exit = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "EXIT");
+                        tiles[x][y] = exit;
+                        mutableTiles.add(exit);
+                        break;
+                    
+                    case RoomTemplate.BACKGROUND:
+                        tiles[x][y] = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "BACKGROUND");
+                        break;
+                    
+                    default: // No tile (past the end of a short line)
+                        break;
                 }
             }
         }
     }
     
     /**
-     * Creates a tile based on the character in the level file.
-     * 
-     * @param x The x coordinate in the grid
-     * @param y The y coordinate in the grid
-     * @param tileChar The character representing the tile type
+     * Creates the player start, coins, key and traps at their cells (the traps' turn points are already in their patrols).
      */
-    private void createTile(int x, int y, char tileChar) {
-        switch (tileChar) {
-            case 'X': // Terrain
-                Tile terrain = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "TERRAIN");
-                tiles[x][y] = terrain;
-                terrainTiles.add(terrain);
-                mapPane.getChildren().add(terrain);
-                
-                showSprite(terrain, x, y);
-                break;
-                
-            case 'P': // Player
-                // Create an empty/background tile first
-                addBackgroundTile(x, y);
-                
-                playerX = x * TILE_SIZE + TILE_SIZE/2;
-                playerY = y * TILE_SIZE + TILE_SIZE/2;
-                playerRadius = TILE_SIZE/2;
-                
-                break;
-                
-            case 'C': // Coin
-                // Create an empty/background tile first
-                addBackgroundTile(x, y);
-                
-                // Create coin at this position
-                Coin coin = new Coin(x * TILE_SIZE + TILE_SIZE/2, y * TILE_SIZE + TILE_SIZE/2);
-                coins.add(coin);
-                mapPane.getChildren().add(coin.getCoin());
-                break;
-                
-            case 'K': // Key 
-                // Create an empty/background tile first
-                addBackgroundTile(x, y);
-                
-                // Create a key object
-                key = new Key(x * TILE_SIZE + TILE_SIZE/2, y * TILE_SIZE + TILE_SIZE/2);
-                mapPane.getChildren().add(key.getKey());
-                
-                break;
-                
-            case 'A': // Exit
-                // Create an empty/background tile first
-                exit = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "EXIT");
-                exitX = x;
-                exitY = y;
-                tiles[x][y] = exit;
-                mapPane.getChildren().add(exit);
-                showSprite(exit, x, y);
-                
-                break;
-            
-            case 'S': // Spike trap
-                // Create an empty/background tile first
-                addBackgroundTile(x, y);   
-                
-                Spike spike = new Spike(x * TILE_SIZE + TILE_SIZE/2, y * TILE_SIZE + TILE_SIZE/2, TILE_SIZE);
-                traps.add(spike);
-                mapPane.getChildren().add(spike);
-                break;
-
-            case 'M': // Moving spike trap
-                // Create an empty/background tile first
-                addBackgroundTile(x, y);   
-                
-                MovingSpike movingSpike = new MovingSpike(x * TILE_SIZE + TILE_SIZE/2, y * TILE_SIZE + TILE_SIZE/2, TILE_SIZE);
+    private void createEntities() {
+        if (template.getPlayerCell() >= 0) {
+            playerX = centerX(template.getPlayerCell());
+            playerY = centerY(template.getPlayerCell());
+            playerRadius = TILE_SIZE/2;
+        }
+        
+        for (int cell : template.getCoinCells()) {
+            coins.add(new Coin(centerX(cell), centerY(cell)));
+        }
+        
+        if (template.getKeyCell() >= 0) {
+            key = new Key(centerX(template.getKeyCell()), centerY(template.getKeyCell()));
+        }
+        
+        int[] trapCells = template.getTrapCells();
+        for (int i = 0; i < trapCells.length; i++) {
+            if (template.getTrapKind(i) == RoomTemplate.MOVING_SPIKE) {
+                MovingSpike movingSpike = new MovingSpike(centerX(trapCells[i]), centerY(trapCells[i]), TILE_SIZE);
+                // Patrol ends were worked out when the room was parsed
+                movingSpike.setPatrol(template.getPatrolLeftX(i), template.getPatrolRightX(i));
                 traps.add(movingSpike);
-                mapPane.getChildren().add(movingSpike);
-                break;
-                
-            case 'T':   // Points where moving traps will turn
-                addBackgroundTile(x, y); 
-                
-                Tile turn = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "TURN");
-                turns.add(turn);
-                mapPane.getChildren().add(turn);
-                break;
-                
-            default: // Empty space
-                Tile emptyTile = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "BACKGROUND");
-                tiles[x][y] = emptyTile;
-                mapPane.getChildren().add(emptyTile);
-                
-                showSprite(emptyTile, x, y);
-                break;
+            }
+            else {
+                traps.add(new Spike(centerX(trapCells[i]), centerY(trapCells[i]), TILE_SIZE));
+            }
         }
     }
     
     /**
-     * Adds a sprite image to the map pane if the tile has one.
+     * X-coordinate of the center of a cell.
      */
-    private void showSprite(Tile tile, int x, int y) {
-        // Add the sprite image if the tile has one
-        if (tile.hasSprite()) {
-            ImageView imageView = tile.getImageView();
-                
-            // Position the ImageView at the same location as the tile
-            imageView.setTranslateX(x * TILE_SIZE);
-            imageView.setTranslateY(y * TILE_SIZE);
-                
-            mapPane.getChildren().add(imageView);
-        }
+    private int centerX(int cell) {
+        return (cell % width) * TILE_SIZE + TILE_SIZE/2;
     }
     
     /**
-     * Method to update the sprite of the exit
+     * Y-coordinate of the center of a cell.
      */
-    public void updateExit() {
-        exit.updateSprite();
-        showSprite(exit, exitX, exitY);
+    private int centerY(int cell) {
+        return (cell / width) * TILE_SIZE + TILE_SIZE/2;
     }
     
     /**
-     * Adds a background tile at the specified position.
+     * Puts the room back to how it was built: coins and key uncollected, traps at their starting
+     * positions with cleared cooldowns and the exit closed. Nothing is reallocated.
      */
-    private void addBackgroundTile(int x, int y){
-        Tile backgroundTile = new Tile(x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE, "BACKGROUND");
-        tiles[x][y] = backgroundTile;
-        mapPane.getChildren().add(backgroundTile);
-        showSprite(backgroundTile, x, y);
+    public void reset() {
+        for (int i = 0; i < coins.size(); i++) {
+            coins.get(i).reset();
+        }
+        if (key != null) {
+            key.reset();
+        }
+        for (int i = 0; i < traps.size(); i++) {
+            traps.get(i).reset();
+        }
+        if (exit != null) {
+            exit.reset();
+        }
+        
+        trapIndex.reset();
+        triggerIndex.reset();
     }
     
     /**
-     * Returns the GridPane containing the entire game map
-     * 
-     * @return The GridPane containing all map tiles
+     * Opens the exit (only changes it the first time).
+     */
+    public void openExit() {
+        if (exit != null) {
+            exit.open();
+        }
+    }
+    
+    /**
+     * Get the tiles whose state can change during a game (i.e the exit), each drawn on its own
+     * rather than baked into the background.
      */
-    public Pane getMapGrid() {
-        return mapPane;
+    public List<Tile> getMutableTiles() {
+        return mutableTiles;
     }
     
     /**
@@ -283,10 +227,21 @@ public class GameMap {
     }
     
     /**
-     * Return all turn points for moving traps.
+     * Get the index of traps by the cells they cover
+     * 
+     * @return The trap index of this map
      */
-    public List<Tile> getTurns(){
-        return turns;
+    public TrapIndex getTrapIndex() {
+        return trapIndex;
+    }
+    
+    /**
+     * Get the index of the coins, key and exit by the cells they cover
+     * 
+     * @return The trigger index of this map
+     */
+    public TriggerIndex getTriggerIndex() {
+        return triggerIndex;
     }
     
     /**
@@ -306,12 +261,12 @@ public class GameMap {
     }
     
     /**
-     * Get all terrain tiles
+     * Get the solid cell grid used for collision
      * 
-     * @return List of terrain tiles
+     * @return The collision world of this map
      */
-    public List<Tile> getTerrainTiles() {
-        return terrainTiles;
+    public CollisionWorld getCollisionWorld() {
+        return collisionWorld;
     }
     
     /**
@@ -332,6 +287,15 @@ public class GameMap {
         return height;
     }
     
+    /**
+     * Get the template this map was built from
+     * 
+     * @return The room's layout
+     */
+    public RoomTemplate getTemplate() {
+        return template;
+    }
+    
     /**
      * Return a 2D array of all tiles.
      */
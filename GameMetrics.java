@@ -0,0 +1,139 @@
+import java.lang.management.ManagementFactory;
+import javafx.application.Platform;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Live engine metrics, published over JMX (see GameMetricsMBean).
+ * The game screen stores a new set of figures once a second on the JavaFX thread and JMX reads them
+ * from its own threads, so every figure is a volatile field. Operations are handed over to the JavaFX thread.
+ */
+public class GameMetrics implements GameMetricsMBean {
+    public static final String OBJECT_NAME = "superlario:type=GameMetrics";
+    private static final int ROLLING_SECONDS = 60;
+    
+    private final GameManager gameManager;
+    
+    private volatile double currentFps;
+    private volatile double rollingFps;
+    private volatile double tickTimeMillis;
+    private volatile double maxTickTimeMillis;
+    private volatile int mapPaneNodeCount;
+    private volatile int liveCoins;
+    private volatile int liveTraps;
+    private volatile int roomsLoaded;
+    
+    // FPS of each of the last ROLLING_SECONDS seconds (only touched on the JavaFX thread)
+    private final double[] fpsHistory = new double[ROLLING_SECONDS];
+    private int fpsSamples = 0;
+    
+    /**
+     * Creates the metrics of a game, its operations acting through the game manager.
+     */
+    public GameMetrics(GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+    
+    /**
+     * Registers the metrics with the platform MBean server (replacing any registered before).
+     * Failing to register only loses the metrics, so it is reported rather than thrown.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("Error registering game metrics: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stores the figures for the last second (called by the game screen on the JavaFX thread).
+     * 
+     * @param fps Frames per second over the last second
+     * @param tickMillis Mean simulation step time over the last second
+     * @param maxTickMillis Longest simulation step over the last second
+     * @param nodeCount Nodes in the scene graph of the room shown
+     * @param coins Coins in the current room still to be collected
+     * @param traps Traps in the current room
+     * @param rooms Rooms built so far
+     */
+    public void update(double fps, double tickMillis, double maxTickMillis, int nodeCount, int coins, int traps, int rooms) {
+        fpsHistory[fpsSamples % ROLLING_SECONDS] = fps;
+        fpsSamples++;
+        double total = 0;
+        int samples = Math.min(fpsSamples, ROLLING_SECONDS);
+        for (int i = 0; i < samples; i++) {
+            total += fpsHistory[i];
+        }
+        
+        currentFps = fps;
+        rollingFps = total / samples;
+        tickTimeMillis = tickMillis;
+        maxTickTimeMillis = maxTickMillis;
+        mapPaneNodeCount = nodeCount;
+        liveCoins = coins;
+        liveTraps = traps;
+        roomsLoaded = rooms;
+    }
+    
+    @Override
+    public double getCurrentFps() {
+        return currentFps;
+    }
+    
+    @Override
+    public double getRollingFps() {
+        return rollingFps;
+    }
+    
+    @Override
+    public double getTickTimeMillis() {
+        return tickTimeMillis;
+    }
+    
+    @Override
+    public double getMaxTickTimeMillis() {
+        return maxTickTimeMillis;
+    }
+    
+    @Override
+    public int getMapPaneNodeCount() {
+        return mapPaneNodeCount;
+    }
+    
+    @Override
+    public int getLiveCoins() {
+        return liveCoins;
+    }
+    
+    @Override
+    public int getLiveTraps() {
+        return liveTraps;
+    }
+    
+    @Override
+    public int getRoomsLoaded() {
+        return roomsLoaded;
+    }
+    
+    @Override
+    public int getSpriteCacheSize() {
+        return SpriteCache.size();
+    }
+    
+    @Override
+    public void pause() {
+        Platform.runLater(gameManager::forcePause);
+    }
+    
+    @Override
+    public void reset() {
+        Platform.runLater(gameManager::forceReset);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Management interface of the running game, registered with the platform MBean server
+ * as "superlario:type=GameMetrics" so standard JMX tools (jconsole, VisualVM, monitoring agents)
+ * can watch it. The figures are refreshed once a second by the game screen.
+ */
+public interface GameMetricsMBean {
+    /**
+     * Frames per second over the last second.
+     */
+    double getCurrentFps();
+    
+    /**
+     * Frames per second averaged over the last minute (or since the game started).
+     */
+    double getRollingFps();
+    
+    /**
+     * Mean time of one simulation step over the last second, in milliseconds.
+     */
+    double getTickTimeMillis();
+    
+    /**
+     * Longest simulation step in the last second, in milliseconds.
+     */
+    double getMaxTickTimeMillis();
+    
+    /**
+     * Number of nodes in the scene graph of the room being shown.
+     */
+    int getMapPaneNodeCount();
+    
+    /**
+     * Coins in the current room still to be collected.
+     */
+    int getLiveCoins();
+    
+    /**
+     * Traps in the current room.
+     */
+    int getLiveTraps();
+    
+    /**
+     * Rooms built so far (each is reused by later games).
+     */
+    int getRoomsLoaded();
+    
+    /**
+     * Sprites decoded and held by the sprite cache.
+     */
+    int getSpriteCacheSize();
+    
+    /**
+     * Pauses the game, as if escape was pressed (does nothing unless a game is being played).
+     */
+    void pause();
+    
+    /**
+     * Abandons the current game and starts a new one.
+     */
+    void reset();
+}
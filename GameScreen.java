@@ -3,29 +3,65 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.Pane;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.Node;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
 import javafx.geometry.Pos;
 import javafx.geometry.Insets;
-import javafx.geometry.Bounds;
-import javafx.animation.KeyFrame;
 import javafx.animation.AnimationTimer;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
+import javafx.application.Platform;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * GameScreen is responsible for rendering the game and handling UI components.
  * View component of the MVC pattern.
  */
 public class GameScreen extends BaseScreen {    
-
+    
     private Game game;          
     private Pane gamePane;      // Pane within the Stage where the game is displayed and updated
+    private Pane viewport;      // clips the room to the space left under the stats bar
+    private Pane entityOverlay; // holds the player (or entity canvas) over whichever room is showing
+    private int shownRoom;      // index of the room gamePane belongs to
+    private MapView[] mapViews; // Nodes for every room of the level
+    private final Map<GameMap, MapView> builtViews = new HashMap<>();  // views of every room shown so far, reused by later games
+    private PlayerView playerView;
+    private EntityCanvas entityCanvas;  // draws the entities instead of the views when canvas rendering is on
+    private boolean canvasRendering;
+    
+    // Top left corner of the part of the room in view (the camera follows the player in rooms bigger than the screen)
+    private double cameraX;
+    private double cameraY;
     private boolean gameOver;
+    private boolean loading;    // whether a new level is being built (the last game's screen is still shown)
+    private CompletableFuture<GameMap[]> pendingLevel;  // the level being built, if any
+    
+    // Timing of room transitions: the longest frame from the swap until the new neighbours are pre-warmed
+    private boolean timingTransition;
+    private double transitionFrameMillis;
+    private double lastTransitionMillis = -1;
+    private double worstTransitionMillis;
+    
+    // Fixed timestep settings
+    private static final int DEFAULT_TICK_RATE = 60;    // simulation updates per second
+    private static final int MAX_STEPS_PER_FRAME = 5;   // catch-up limit after a stall
+    private int tickRate = DEFAULT_TICK_RATE;
+    private double accumulator = 0;
     
     // UI Components
     private AnimationTimer gameLoop;
     private long lastUpdateTime = 0;
+    private long pulseStart = 0;    // when the game loop started this pulse's work (0 when not profiling)
+    private long layoutStart = 0;
     private int frameCount = 0;
     private long lastFpsUpdateTime = 0;
     
@@ -33,13 +69,21 @@ public class GameScreen extends BaseScreen {
     private Label coinLabel;
     private CheckBox keyLabel;
     private Label fpsLabel;
+    private Label profilerLabel;    // p50/p99/max of every phase, shown over the game when profiling
+    private CheckMenuItem profilerOpt;
+    private String lastProfilePath;     // the last profile exported, shown under the summary
+    
+    // Published to JMX once a second, with the step times since the last time
+    private GameMetrics metrics;
+    private long tickNanos = 0;
+    private long maxTickNanos = 0;
+    private int tickCount = 0;
     
     private Label healthLabel;
     private ProgressBar healthBar;
     
     private Label countdownLabel;
     private ProgressBar timeBar;
-    private Timeline timer;
     
     /**
      * Create a new game screen and initialize game components.
@@ -48,28 +92,212 @@ public class GameScreen extends BaseScreen {
         super(gameManager, width, height);
         gameOver = false;
         game = new Game();
-        setupView();
+        setContent();
         setGameLoop();
+        startGameLoop();
     }
     
     /**
-     * Set up the UI components and the game pane
+     * Set up the UI components and the game pane (once, later games only swap the rooms shown in it)
      */
     @Override
     protected void setContent() {
-        // game pane where game objects are rendered
-        if (gamePane != null){
-            gamePane.getChildren().clear();
-        }
-        gamePane = game.getCurrentMap().getMapGrid();
-        
         // Add UI elements
         setupUIElements();
         
-        // Add the player to the game pane
-        gamePane.getChildren().add(game.getPlayer());
+        // The viewport takes the rest of the window and only shows what's inside it
+        viewport = new Pane();
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(viewport.widthProperty());
+        clip.heightProperty().bind(viewport.heightProperty());
+        viewport.setClip(clip);
+        VBox.setVgrow(viewport, Priority.ALWAYS);
+        
+        // The player (or the canvas drawing it) sits above the rooms and scrolls with them
+        // (the game keeps the same player between games)
+        playerView = new PlayerView(game.getPlayer());
+        entityCanvas = new EntityCanvas();
+        entityOverlay = new Pane();
+        entityOverlay.getChildren().addAll(playerView, entityCanvas);
+        playerView.setVisible(!canvasRendering);
+        entityCanvas.setVisible(canvasRendering);
+        viewport.getChildren().add(entityOverlay);
+        
+        // Profiler overlay stays in the corner, above everything
+        profilerLabel = new Label();
+        profilerLabel.getStyleClass().add("profiler_overlay");
+        profilerLabel.setMouseTransparent(true);
+        profilerLabel.setVisible(game.getProfiler().isEnabled());
+        viewport.getChildren().add(profilerLabel);
+        root.getChildren().add(viewport);
+        
+        showLevel();
+    }
+    
+    /**
+     * Puts the rooms of the game's current level in the viewport, in place of the last game's,
+     * and fills the stats bar in again.
+     */
+    private void showLevel() {
+        if (mapViews != null) {
+            for (MapView mapView : mapViews) {
+                mapView.getMapPane().setVisible(false);
+                viewport.getChildren().remove(mapView.getMapPane());
+            }
+        }
+        createViews();
+        gamePane = null;
+        showRoom(game.getIndex());
+        
+        timingTransition = false;
+        // The game has just started, so fill them all in
+        updateUI(game.takeChanges() | Game.ALL_CHANGED);
+    }
+    
+    /**
+     * Create the views that draw every room of the current level.
+     * Views built for an earlier game are reset and reused (rooms are reused by the game too).
+     */
+    private void createViews() {
+        GameMap[] levelMaps = game.getLevelMaps();
+        if (mapViews == null || mapViews.length != levelMaps.length) {
+            mapViews = new MapView[levelMaps.length];
+        }
+        for (int i = 0; i < levelMaps.length; i++) {
+            MapView mapView = builtViews.get(levelMaps[i]);
+            if (mapView == null) {
+                mapView = new MapView(levelMaps[i]);
+                builtViews.put(levelMaps[i], mapView);
+            }
+            else {
+                mapView.reset();
+            }
+            mapView.setEntitiesShown(!canvasRendering);
+            mapViews[i] = mapView;
+        }
+    }
+    
+    /**
+     * Switches between drawing the entities as a node each (default) and drawing them all onto one canvas.
+     */
+    public void setCanvasRendering(boolean enabled) {
+        if (enabled == canvasRendering) {
+            return;
+        }
+        canvasRendering = enabled;
+        
+        if (mapViews != null) {
+            for (MapView mapView : mapViews) {
+                mapView.setEntitiesShown(!enabled);
+            }
+        }
+        if (playerView != null) {
+            playerView.setVisible(!enabled);
+            entityCanvas.setVisible(enabled);
+        }
+    }
+    
+    /**
+     * Sets where the once a second engine figures are published (null for nowhere).
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Publishes the last second's figures to the metrics, then starts timing the steps afresh.
+     */
+    private void publishMetrics(double fps) {
+        if (metrics != null) {
+            GameMap map = game.getCurrentMap();
+            int liveCoins = 0;
+            for (int i = 0; i < map.getCoins().size(); i++) {
+                if (!map.getCoins().get(i).isCollected()) {
+                    liveCoins++;
+                }
+            }
+            double tickMillis = tickCount == 0 ? 0 : tickNanos / 1e6 / tickCount;
+            metrics.update(fps, tickMillis, maxTickNanos / 1e6, countNodes(gamePane), liveCoins,
+                map.getTraps().size(), game.getRoomsLoaded());
+        }
+        tickNanos = 0;
+        maxTickNanos = 0;
+        tickCount = 0;
+    }
+    
+    /**
+     * Counts a node and everything under it in the scene graph.
+     */
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Whether the game is paused.
+     */
+    public boolean isPaused() {
+        return game.isPaused();
+    }
+    
+    /**
+     * Shows or hides the profiler overlay, timing the game's phases only while it is shown.
+     */
+    public void setProfilerShown(boolean shown) {
+        game.getProfiler().setEnabled(shown);
+        profilerOpt.setSelected(shown);
+        if (profilerLabel != null) {
+            profilerLabel.setVisible(shown);
+            updateProfilerLabel();
+        }
+    }
+    
+    /**
+     * Shows the latest timings in the profiler overlay, with where the last profile was written.
+     */
+    private void updateProfilerLabel() {
+        String summary = game.getProfiler().getSummary();
+        profilerLabel.setText(lastProfilePath == null ? summary : summary + "Profile written to " + lastProfilePath);
+    }
+    
+    /**
+     * Writes the phase timings recorded so far to a file in the Profiles directory.
+     */
+    public void exportProfile() {
+        try {
+            File file = game.getProfiler().exportReport();
+            lastProfilePath = file.getPath();
+            updateProfilerLabel();
+        } catch (IOException e) {
+            System.err.println("Error writing profile: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Adds a View menu (with the rendering and profiler options) to the standard menu bar.
+     * Called by the BaseScreen constructor, so before the game exists (the profiler starts off).
+     */
+    @Override
+    protected MenuBar makeMenuBar() {
+        MenuBar menuBar = super.makeMenuBar();
+        
+        Menu viewMenu = new Menu("View");
+        CheckMenuItem canvasOpt = new CheckMenuItem("Canvas rendering");
+        canvasOpt.setSelected(canvasRendering);
+        canvasOpt.setOnAction(event -> setCanvasRendering(canvasOpt.isSelected()));
+        profilerOpt = new CheckMenuItem("Profiler (F3)");
+        profilerOpt.setOnAction(event -> setProfilerShown(profilerOpt.isSelected()));
+        MenuItem exportOpt = new MenuItem("Export profile");
+        exportOpt.setOnAction(event -> exportProfile());
+        viewMenu.getItems().addAll(canvasOpt, profilerOpt, exportOpt);
         
-        root.getChildren().add(gamePane);
+        menuBar.getMenus().add(1, viewMenu);
+        return menuBar;
     }
     
     /**
@@ -120,41 +348,200 @@ public class GameScreen extends BaseScreen {
     }
     
     /**
-     * Setup the view components
+     * Update the UI elements whose part of the game state changed since the last frame
      */
-    private void setupView() {
-        setContent();
-        updateUI();
+    private void updateUI() {
+        int changes = game.takeChanges();
+        if (changes != 0) {
+            updateUI(changes);
+        }
     }
     
     /**
-     * Update all UI elements with current game state
+     * Update the UI elements showing the given parts of the game state, leaving the rest untouched
+     * (each change to a control can cost a CSS and layout pass of the stats bar).
+     * 
+     * @param changes Game change flags (i.e Game.COINS_CHANGED | Game.KEY_CHANGED)
      */
-    private void updateUI() {
+    private void updateUI(int changes) {
+        if ((changes & Game.HEALTH_CHANGED) != 0) {
+            healthBar.setProgress(((double)game.getPlayerHealth()) / 100);
+        }
+        if ((changes & Game.TIME_CHANGED) != 0) {
+            timeBar.setProgress(game.getTimeRemainingSeconds() / game.getINITIAL_TIME());
+            countdownLabel.setText("Time: " + game.getTimeRemaining());
+        }
+        if ((changes & Game.COINS_CHANGED) != 0) {
+            coinLabel.setText("Coins " + game.getCoinCount());
+        }
+        if ((changes & Game.KEY_CHANGED) != 0) {
+            keyLabel.setSelected(game.isKeyCollected());
+        }
+    }
+    
+    /**
+     * Update scene when player moves to a different room.
+     * 
+     * @return Whether the room changed this frame
+     */
+    private boolean handleSceneChange() {
+        if (mapViews[game.getIndex()].getMapPane() == gamePane) {
+            return false;
+        }
+        GameEvents.RoomTransitionEvent event = new GameEvents.RoomTransitionEvent();
+        event.begin();
+        int fromRoom = shownRoom;
+        boolean prewarmed = mapViews[game.getIndex()].getMapPane().getParent() == viewport;
+        showRoom(game.getIndex());
+        
+        if (event.shouldCommit()) {
+            event.fromRoom = fromRoom;
+            event.toRoom = shownRoom;
+            event.prewarmed = prewarmed;
+            event.coins = game.getCurrentMap().getCoins().size();
+            event.traps = game.getCurrentMap().getTraps().size();
+            event.commit();
+        }
         
-        healthBar.setProgress(((double)game.getPlayerHealth()) / 100);
-        timeBar.setProgress((double) game.getTimeRemaining() / (double)game.getINITIAL_TIME());
-        coinLabel.setText("Coins " + game.getCoinCount());
-        countdownLabel.setText("Time: " + game.getTimeRemaining());
-        keyLabel.setSelected(game.isKeyCollected());
+        // Time the frames of the transition, up to when the new neighbours are ready
+        timingTransition = true;
+        transitionFrameMillis = 0;
+        return true;
     }
     
     /**
-     * Update scene when player moves to a different room
+     * Shows a room by making its pane visible and hiding the last one.
+     * The rooms either side are kept (hidden) in the viewport already styled and laid out,
+     * so walking into one doesn't add any nodes to the scene.
      */
-    private void handleSceneChange() {
-        if (game.getCurrentMap().getMapGrid() != gamePane) {
-            
-            // Remove player from current pane
-            gamePane.getChildren().remove(game.getPlayer());
-            root.getChildren().remove(gamePane);
-            
-            // Gets the game map to render
-            gamePane = game.getCurrentMap().getMapGrid();
-            
-            gamePane.getChildren().add(game.getPlayer());
-            root.getChildren().add(gamePane);
+    private void showRoom(int index) {
+        if (gamePane != null) {
+            gamePane.setVisible(false);
         }
+        gamePane = mapViews[index].getMapPane();
+        shownRoom = index;
+        if (gamePane.getParent() != viewport) {
+            // Only the first room of a game (or after a jump past a neighbour) isn't warm already
+            viewport.getChildren().add(0, gamePane);
+        }
+        gamePane.setVisible(true);
+    }
+    
+    /**
+     * Does one step of keeping the viewport's rooms to the current one and its neighbours:
+     * either pre-warms a neighbour that isn't in it yet or drops a room that is no longer next door.
+     * One step a frame, so the work after a transition is spread out.
+     * 
+     * @return Whether there was anything to do
+     */
+    private boolean prewarmNeighbours() {
+        int index = game.getIndex();
+        for (int i = 0; i < mapViews.length; i++) {
+            Pane pane = mapViews[i].getMapPane();
+            boolean inViewport = pane.getParent() == viewport;
+            if (Math.abs(i - index) > 1) {
+                if (inViewport) {
+                    viewport.getChildren().remove(pane);
+                    return true;
+                }
+            }
+            else if (!inViewport) {
+                prewarm(mapViews[i], i < index);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Adds a room to the viewport hidden, with the chunks at the edge the player will walk in from baked
+     * and its nodes styled and laid out, so the frame that shows it has nothing left to do.
+     * 
+     * @param mapView The room to get ready
+     * @param enterFromRight Whether the player will come in at the room's right edge
+     */
+    private void prewarm(MapView mapView, boolean enterFromRight) {
+        GameMap map = mapView.getMap();
+        double roomWidth = map.getWidth() * GameMap.TILE_SIZE;
+        double roomHeight = map.getHeight() * GameMap.TILE_SIZE;
+        double viewX = enterFromRight ? Math.max(0, roomWidth - getViewWidth()) : 0;
+        double viewY = clamp(cameraY, 0, Math.max(0, roomHeight - getViewHeight()));
+        
+        Pane pane = mapView.getMapPane();
+        pane.setTranslateX(-viewX);
+        pane.setTranslateY(-viewY);
+        viewport.getChildren().add(0, pane);
+        mapView.sync(0, viewX, viewY, getViewWidth(), getViewHeight());
+        
+        // Styled while still visible, as CSS may skip hidden nodes
+        pane.setVisible(true);
+        pane.applyCss();
+        pane.layout();
+        pane.setVisible(false);
+    }
+    
+    /**
+     * Finishes timing a room transition, keeping its longest frame for the FPS label.
+     */
+    private void endTransitionTiming() {
+        timingTransition = false;
+        lastTransitionMillis = transitionFrameMillis;
+        worstTransitionMillis = Math.max(worstTransitionMillis, transitionFrameMillis);
+    }
+    
+    /**
+     * Bring the player and current room's nodes (or the entity canvas) up to date with the game state.
+     * 
+     * @param alpha How far (0 to 1) the render time is between the previous and current simulation step
+     */
+    private void render(double alpha) {
+        updateCamera(alpha);
+        double viewWidth = getViewWidth();
+        double viewHeight = getViewHeight();
+        
+        if (canvasRendering) {
+            entityCanvas.draw(game, alpha, cameraX, cameraY, viewWidth, viewHeight);
+        }
+        else {
+            playerView.sync(alpha);
+        }
+        mapViews[game.getIndex()].sync(alpha, cameraX, cameraY, viewWidth, viewHeight);
+    }
+    
+    /**
+     * Centers the camera on the player, without showing anything past the edges of the room,
+     * and scrolls the room's pane to match.
+     */
+    private void updateCamera(double alpha) {
+        GameMap map = game.getCurrentMap();
+        double roomWidth = map.getWidth() * GameMap.TILE_SIZE;
+        double roomHeight = map.getHeight() * GameMap.TILE_SIZE;
+        Player player = game.getPlayer();
+        
+        cameraX = clamp(player.getRenderX(alpha) - getViewWidth() / 2, 0, Math.max(0, roomWidth - getViewWidth()));
+        cameraY = clamp(player.getRenderY(alpha) - getViewHeight() / 2, 0, Math.max(0, roomHeight - getViewHeight()));
+        gamePane.setTranslateX(-cameraX);
+        gamePane.setTranslateY(-cameraY);
+        entityOverlay.setTranslateX(-cameraX);
+        entityOverlay.setTranslateY(-cameraY);
+    }
+    
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+    
+    /**
+     * Width of the viewport (the window's width until it has been laid out).
+     */
+    private double getViewWidth() {
+        return viewport.getWidth() > 0 ? viewport.getWidth() : width;
+    }
+    
+    /**
+     * Height of the viewport (the window's height until it has been laid out).
+     */
+    private double getViewHeight() {
+        return viewport.getHeight() > 0 ? viewport.getHeight() : height;
     }
     
     /**
@@ -162,9 +549,21 @@ public class GameScreen extends BaseScreen {
      */
     @Override
     public Scene getScene() {
+        boolean created = this.scene == null;
         Scene scene = super.getScene();
         scene.setOnKeyPressed(event -> handleKeyPress(event));
         scene.setOnKeyReleased(event -> handleKeyRelease(event));
+        if (created) {
+            // Times the pulse's own work: the layout pass, and everything from the game loop to the end of it
+            scene.addPreLayoutPulseListener(() -> layoutStart = game.getProfiler().start());
+            scene.addPostLayoutPulseListener(() -> {
+                FrameProfiler profiler = game.getProfiler();
+                profiler.lap(FrameProfiler.PULSE, pulseStart);
+                profiler.lap(FrameProfiler.LAYOUT, layoutStart);
+                pulseStart = 0;
+                layoutStart = 0;
+            });
+        }
         return scene;
     }
     
@@ -176,8 +575,10 @@ public class GameScreen extends BaseScreen {
             if (!game.isPaused()) {
                 pauseGame();
             }
+        } else if (event.getCode() == KeyCode.F3) {
+            setProfilerShown(!game.getProfiler().isEnabled());
         } else {
-            game.getPlayer().handleKeyPressed(event.getCode());
+            setPlayerInput(event.getCode(), true);
         }
     }
     
@@ -185,57 +586,88 @@ public class GameScreen extends BaseScreen {
      * Handles key release events to the player for movement.
      */
     private void handleKeyRelease(KeyEvent event) {
-        game.getPlayer().handleKeyReleased(event.getCode());
+        setPlayerInput(event.getCode(), false);
+    }
+    
+    /**
+     * Passes the state of a movement key on to the player.
+     */
+    private void setPlayerInput(KeyCode code, boolean pressed) {
+        Player player = game.getPlayer();
+        if (code == KeyCode.LEFT || code == KeyCode.A ) 
+            player.setLeftPressed(pressed);
+        if (code == KeyCode.RIGHT || code == KeyCode.D ) 
+            player.setRightPressed(pressed);
+        if (code == KeyCode.SPACE) 
+            player.setJumpPressed(pressed);
     }
     
     /**
      * Reset the game to its initial state.
+     * The new level is built on worker threads, and the game starts on the JavaFX thread once it is
+     * ready, so the window keeps responding while it loads.
      */
     public void reset() {
-        // Terminates any ongoing timers and game loops from previous game.
-        if (timer != null){
-            timer.stop();
-        }
+        // Terminates the game loop from previous game (the countdown runs on the game's clock, reset with it).
         if (gameLoop != null){
             gameLoop.stop();
         }
-    
-        // Hard clears all nodes to prevent dupliation of elements
-        game.reset();
-        root.getChildren().clear();
-        root.getChildren().add(super.makeMenuBar());
-        
         gameOver = false;
-        setupView();
-        setGameLoop();
+        loading = true;
         
+        CompletableFuture<GameMap[]> level;
+        try {
+            level = game.generateLevelAsync();
+        } catch (RuntimeException e) {
+            // Rooms built before are reset on this thread, so a failure can come straight back
+            level = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<GameMap[]> pending = level;
+        pendingLevel = pending;
+        pending.whenCompleteAsync((levelMaps, error) -> {
+            // A later reset has started a newer level
+            if (pendingLevel != pending) {
+                return;
+            }
+            pendingLevel = null;
+            loading = false;
+            if (error != null) {
+                levelFailed(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            game.start(levelMaps);
+            
+            // The screen's controls are kept, only the rooms are swapped for the new level's
+            showLevel();
+            startGameLoop();
+        }, Platform::runLater);
     }
     
     /**
-     * Start the countdown timer.
+     * Gives up on a level that could not be built: back to the title screen (with nothing to resume)
+     * and an error message saying why.
      */
-    public void startCountdown() {
-        timer = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-            boolean timeRemains = game.decrementTimer();
-            countdownLabel.setText("Time remaining: " + game.getTimeRemaining());
-    
-            if (!timeRemains) {
-                timer.stop();
-                gameCompleted();
-            }
-        }));
-        timer.setCycleCount(Timeline.INDEFINITE);
-        timer.play();
+    private void levelFailed(Throwable error) {
+        System.err.println("Error generating level: " + error.getMessage());
+        gameOver = true;
+        gameManager.showTitleScreen(true);
+        
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText("The level could not be loaded:\n" + error.getMessage());
+        alert.show();
     }
     
     /**
      * Pause the game and displays pause scene.
      */
     public void pauseGame() {
-        game.setPaused(true);
-        if (timer != null) {
-            timer.pause();
+        // Nothing to pause until the new level has started
+        if (loading) {
+            return;
         }
+        game.setPaused(true);     // stops the game's clock too
         gameManager.pauseGame();
     }
     
@@ -244,9 +676,6 @@ public class GameScreen extends BaseScreen {
      */
     public void resumeCountdown() {
         game.setPaused(false);
-        if (timer != null) {
-            timer.play();
-        }
     }
     
     /**
@@ -256,23 +685,20 @@ public class GameScreen extends BaseScreen {
         game.setPaused(!game.isPaused());
     }
     
-    /**
-     * Reset the timer to initial value.
-     */
-    public void resetTimer() {
-        game.reset();
-        countdownLabel.setText("Time ReshowTitleScreenmaining: " + game.getTimeRemaining());
-    }
-    
     /**
      * Handle end of game completion event.
      */
     private void gameCompleted() {
-        // Stop game loop and timer
+        // Stop game loop (and with it the game's clock)
         gameLoop.stop();
-        timer.stop();
         gameOver = true;
         
+        // Keep the timings of a profiled run, then start the next run afresh
+        if (game.getProfiler().isEnabled()) {
+            exportProfile();
+            game.getProfiler().reset();
+        }
+        
         int score = 0;
         String comment = "";
         
@@ -287,16 +713,14 @@ public class GameScreen extends BaseScreen {
             score = game.calculateScore();
         }
         
-        game.reset();
-        
-        // Invokes gameManager to show the title screen
+        // Invokes gameManager to show the title screen (the next game is generated when it starts)
         if (score == 0) {
             gameManager.showGameOverScreen(false, score, comment);
         }
         else {
             gameManager.showGameOverScreen(true, score, comment);
         }
-             
+    
     }
     
     /**
@@ -307,35 +731,85 @@ public class GameScreen extends BaseScreen {
     }
     
     /**
-     * Set up the game loop animation timer which handles game state updates.
+     * Sets how many simulation steps run per second (independent of the display refresh rate).
      */
-    private void setGameLoop() {
+    public void setTickRate(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + tickRate);
+        }
+        this.tickRate = tickRate;
+    }
+    
+    /**
+     * (Re)starts the game loop, timing from now.
+     */
+    private void startGameLoop() {
         lastUpdateTime = System.nanoTime();
         lastFpsUpdateTime = System.nanoTime();
         frameCount = 0;
-        
+        accumulator = 0;
+        gameLoop.start();
+    }
+    
+    /**
+     * Set up the game loop animation timer which handles game state updates.
+     */
+    private void setGameLoop() {
         gameLoop = new AnimationTimer() {
             @Override
             public void handle(long now) {
+                FrameProfiler profiler = game.getProfiler();
+                pulseStart = profiler.start();
                 
-                double deltaTime = (now - lastUpdateTime) / 1_000_000_000.0; // Calculate delta time in seconds
-                
+                double frameTime = (now - lastUpdateTime) / 1_000_000_000.0; // Calculate frame time in seconds
+                if (timingTransition) {
+                    transitionFrameMillis = Math.max(transitionFrameMillis, frameTime * 1000);
+                }
                 // Update game state
                 if (!game.isPaused()) {
-                    game.update(deltaTime);
-                    handleSceneChange();
+                    // Run the simulation in fixed steps, however long the frame took
+                    double step = 1.0 / tickRate;
+                    accumulator += frameTime;
+                    
+                    int steps = 0;
+                    while (accumulator >= step && steps < MAX_STEPS_PER_FRAME && game.getPlayer().checkAlive() && !game.isTimeUp()) {
+                        long tickStart = System.nanoTime();
+                        game.update(step);
+                        long tickTime = System.nanoTime() - tickStart;
+                        tickNanos += tickTime;
+                        maxTickNanos = Math.max(maxTickNanos, tickTime);
+                        tickCount++;
+                        accumulator -= step;
+                        steps++;
+                    }
+                    
+                    // Drop any time we couldn't catch up on so a stall doesn't snowball
+                    if (accumulator >= step) {
+                        accumulator = 0;
+                    }
+                    
+                    // Swap rooms, or otherwise get the neighbours of the current one ready
+                    long time = profiler.start();
+                    if (!handleSceneChange() && !prewarmNeighbours() && timingTransition) {
+                        endTransitionTiming();
+                    }
+                    time = profiler.lap(FrameProfiler.SCENE_CHANGE, time);
+                    
+                    // Draw moving objects part way between the last two steps
+                    render(accumulator / step);
+                    time = profiler.lap(FrameProfiler.RENDER, time);
                     updateUI();
+                    profiler.lap(FrameProfiler.UPDATE_UI, time);
                     
                     // Check game completion states (if player is dead, end is reached or player caught cheating)
                     if (!game.getPlayer().checkAlive()){
                         gameCompleted();
                     }
-                    else if (game.getExit() != null && game.isKeyCollected()) {
-                        Bounds playerBounds = game.getPlayer().getBoundsInParent();
-                        Bounds exitBounds = game.getExit().getBoundsInParent();
-                        if (playerBounds.intersects(exitBounds)){
-                            gameCompleted();
-                        }
+                    else if (game.isTimeUp()) {
+                        gameCompleted();
+                    }
+                    else if (game.isExitReached()) {
+                        gameCompleted();
                     }
                 }
                 
@@ -344,7 +818,17 @@ public class GameScreen extends BaseScreen {
                 long elapsedNanos = now - lastFpsUpdateTime;
                 if (elapsedNanos > 1_000_000_000) {
                     double actualFps = frameCount / (elapsedNanos / 1_000_000_000.0);
-                    fpsLabel.setText(String.format("FPS: %.1f", actualFps));
+                    if (lastTransitionMillis < 0) {
+                        fpsLabel.setText(String.format("FPS: %.1f", actualFps));
+                    }
+                    else {
+                        fpsLabel.setText(String.format("FPS: %.1f  Room change: %.1f ms (worst %.1f)",
+                            actualFps, lastTransitionMillis, worstTransitionMillis));
+                    }
+                    if (profiler.isEnabled()) {
+                        updateProfilerLabel();
+                    }
+                    publishMetrics(actualFps);
                     frameCount = 0;
                     lastFpsUpdateTime = now;
                 }
@@ -353,7 +837,5 @@ public class GameScreen extends BaseScreen {
                 lastUpdateTime = now;
             }
         };
-        
-        gameLoop.start();
     }
 }
\ No newline at end of file
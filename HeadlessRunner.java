@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Plays complete games without JavaFX (no window or toolkit needed) using random input.
+ * Used for testing, balancing and benchmarking the game model on a headless machine.
+ * 
+ * Usage: java HeadlessRunner [games] [tick rate]
+ *        java HeadlessRunner rooms     (checks walking between rooms of different sizes)
+ */
+public class HeadlessRunner {
+    private static final double INPUT_CHANGE_TIME = 0.5;   // how often the random player changes its mind
+    
+    /**
+     * Runs the requested number of games and prints the outcomes.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("rooms")) {
+            checkMixedRooms();
+            return;
+        }
+        
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int tickRate = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        
+        Random rand = new Random();
+        int wins = 0;
+        int deaths = 0;
+        int timeouts = 0;
+        long totalCoins = 0;
+        long totalTicks = 0;
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            Game game = new Game();
+            String outcome = play(game, tickRate, rand);
+            
+            switch (outcome) {
+                case "WIN":
+                    wins++;
+                    break;
+                case "DEATH":
+                    deaths++;
+                    break;
+                default:
+                    timeouts++;
+                    break;
+            }
+            totalCoins += game.getCoinCount();
+            totalTicks += Math.round(game.getClock().getTime() * tickRate);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        
+        System.out.println("Games played:   " + games);
+        System.out.println("Wins:           " + wins);
+        System.out.println("Deaths:         " + deaths);
+        System.out.println("Timeouts:       " + timeouts);
+        System.out.printf("Average coins:  %.2f%n", (double) totalCoins / games);
+        System.out.printf("Games/second:   %.1f%n", games / seconds);
+        System.out.printf("Ticks/second:   %.0f%n", totalTicks / seconds);
+    }
+    
+    /**
+     * Walks from a wide, tall room into a small one and back, checking the player comes in at the edge
+     * they walked through and inside the room's height both ways. Exits with status 1 if not.
+     */
+    private static void checkMixedRooms() throws IOException {
+        File dir = Files.createTempDirectory("rooms").toFile();
+        GameMap wide = new GameMap(writeRoom(dir, "wide", 120, 40));
+        GameMap small = new GameMap(writeRoom(dir, "small", 30, 20));
+        GameMap[] levelMaps = new GameMap[Game.NO_OF_SCREENS];
+        levelMaps[0] = wide;
+        for (int i = 1; i < levelMaps.length; i++) {
+            levelMaps[i] = small;
+        }
+        
+        Game game = new Game(levelMaps);
+        Player player = game.getPlayer();
+        int tileSize = GameMap.TILE_SIZE;
+        boolean passed = true;
+        
+        // Right, out of the wide room into the shorter one
+        player.setCenterX(wide.getWidth() * tileSize - 2 * tileSize);
+        player.setRightPressed(true);
+        walkToRoom(game, 1);
+        player.setRightPressed(false);
+        passed &= report("Into the small room", game, 1, 0, 3 * tileSize, small);
+        
+        // Left, back into the wide room at its right edge
+        player.setLeftPressed(true);
+        walkToRoom(game, 0);
+        player.setLeftPressed(false);
+        double wideWidth = wide.getWidth() * tileSize;
+        passed &= report("Back into the wide room", game, 0, wideWidth - 3 * tileSize, wideWidth, wide);
+        
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Writes a room with a solid floor and the player start near the middle of the floor.
+     */
+    private static String writeRoom(File dir, String name, int width, int height) throws IOException {
+        File file = new File(dir, name + ".txt");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            for (int y = 0; y < height; y++) {
+                StringBuilder line = new StringBuilder();
+                for (int x = 0; x < width; x++) {
+                    if (y == height - 1) {
+                        line.append('X');
+                    }
+                    else if (y == height - 2 && x == width / 2) {
+                        line.append('P');
+                    }
+                    else {
+                        line.append('E');
+                    }
+                }
+                out.println(line);
+            }
+        }
+        return file.getPath();
+    }
+    
+    /**
+     * Updates the game until the player is in the given room (or 10 seconds of game time have gone by).
+     */
+    private static void walkToRoom(Game game, int room) {
+        for (int i = 0; i < 600 && game.getIndex() != room; i++) {
+            game.update(1.0 / 60);
+        }
+    }
+    
+    /**
+     * Prints whether the player is in the expected room, between the x-coordinates given and inside its height.
+     */
+    private static boolean report(String step, Game game, int room, double minX, double maxX, GameMap map) {
+        Player player = game.getPlayer();
+        boolean ok = game.getIndex() == room && player.getCenterX() >= minX && player.getCenterX() <= maxX
+            && player.getCenterY() + player.getRadius() <= map.getHeight() * GameMap.TILE_SIZE;
+        System.out.printf("%-24s %s (room %d, x=%.1f, y=%.1f)%n", step, ok ? "OK  " : "FAIL",
+            game.getIndex(), player.getCenterX(), player.getCenterY());
+        return ok;
+    }
+    
+    /**
+     * Plays one game to the end with random input.
+     * 
+     * @return "WIN", "DEATH" or "TIMEOUT"
+     */
+    private static String play(Game game, int tickRate, Random rand) {
+        double step = 1.0 / tickRate;
+        double inputTimer = 0;
+        Player player = game.getPlayer();
+        
+        while (true) {
+            // Pick new random input every so often
+            inputTimer -= step;
+            if (inputTimer <= 0) {
+                inputTimer = INPUT_CHANGE_TIME;
+                boolean left = rand.nextBoolean();
+                player.setLeftPressed(left);
+                player.setRightPressed(!left);
+                player.setJumpPressed(rand.nextInt(3) == 0);
+            }
+            
+            game.update(step);
+            
+            if (!player.checkAlive()) {
+                return "DEATH";
+            }
+            if (game.isTimeUp()) {
+                return "TIMEOUT";
+            }
+            if (game.isExitReached()) {
+                return "WIN";
+            }
+        }
+    }
+}
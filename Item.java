@@ -1,54 +1,46 @@
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Shape;
-import javafx.animation.*;
-import javafx.util.Duration;
-
 /**
  * Abstract class for the collectivle game items (coins and the key).
+ * Holds only the item's state, it is drawn by ItemView.
  */
 public abstract class Item {
     private boolean collected = false;
     private final String TYPE;
-    private Rectangle key;
-    private Circle coin;
+    
+    // Position and drawn size of the item
+    private final double centerX;
+    private final double centerY;
+    private double width;
+    private double height;
+    
+    private final AABB bounds = new AABB(0, 0, 0, 0);   // area the player must overlap to collect the item
     
     /**
      * Create a new item of the specified type at a given position.
      */
     public Item(String type, double x, double y) {
         this.TYPE = type;
+        this.centerX = x;
+        this.centerY = y;
         setType(x, y);
     }
     
     /**
-     * Set up visual representation based on item type.
+     * Set up the size and collection area based on item type.
      */
     private void setType(double x, double y) {
         switch (TYPE) {
             case "KEY":
-                key = new Rectangle(GameMap.TILE_SIZE/2, GameMap.TILE_SIZE/2 * 1.5);
-                
-                // Position the key (Rectangle coordinates are top-left, not center)
-                key.setX(x - GameMap.TILE_SIZE/4);
-                key.setY(y - GameMap.TILE_SIZE/2 * 0.75);
-                
-                // Set appearance
-                key.setFill(Color.GOLD);
-                key.setStroke(Color.DARKORANGE);
-                key.setStrokeWidth(2);
-                key.setArcWidth(GameMap.TILE_SIZE * 0.5);  // Rounded corners
-                key.setArcHeight(GameMap.TILE_SIZE * 0.5);
+                width = GameMap.TILE_SIZE/2;
+                height = GameMap.TILE_SIZE/2 * 1.5;
                 
+                bounds.setFromCircle(x, y, Math.max(width, height) / 2);
                 break;
             
             case "COIN":
-                coin = new Circle(x, y, GameMap.TILE_SIZE/3);
-                // Set appearance
-                coin.setFill(Color.GOLD);
-                coin.setStroke(Color.DARKGOLDENROD);
-                coin.setStrokeWidth(2);
+                width = GameMap.TILE_SIZE/3 * 2;
+                height = width;
+                
+                bounds.setFromCircle(x, y, width / 2);
         }
     }
     
@@ -62,32 +54,24 @@ public abstract class Item {
     }
     
     /**
-     * Collects this key and plays collection animation.
+     * Collects this item (the view plays the collection animation).
      */
     public void collect() {
         collected = true;
-        collectionAnimation();
     }
     
     /**
-     * Plays animation when the item is collected.
+     * Makes the item collectable again (used when restarting the game).
+     */
+    public void reset() {
+        collected = false;
+    }
+    
+    /**
+     * Returns the box around the item's collection area.
      */
-    private void collectionAnimation(){
-        Shape item = (TYPE.equals("KEY")) ? key : coin;
-        
-        TranslateTransition ascend = new TranslateTransition(Duration.millis(300), item);
-        TranslateTransition fall = new TranslateTransition(Duration.millis(300), item);
-        FadeTransition fade = new FadeTransition(Duration.millis(300), item);
-        ParallelTransition fadeOut = new ParallelTransition(fall, fade); 
-        
-        ascend.setByY(-20);
-        fall.setByY(30);
-        fade.setFromValue(1);
-        fade.setToValue(0);
-        
-        SequentialTransition transition = new SequentialTransition(ascend,fadeOut);
-        transition.setOnFinished(event -> item.setVisible(false));
-        transition.play();
+    public AABB getBounds() {
+        return bounds;
     }
     
     /**
@@ -96,16 +80,25 @@ public abstract class Item {
     public abstract boolean checkCollection(Player player);
     
     /**
-     * Return the key for rendering.
+     * Return the item type ("KEY" or "COIN").
      */
-    protected Rectangle getKey() {
-        return key;
+    public String getType() {
+        return TYPE;
     }
     
-    /**
-     * Return the coin for rendering.
-     */
-    protected Circle getCoin() {
-        return coin;
+    public double getCenterX() {
+        return centerX;
+    }
+    
+    public double getCenterY() {
+        return centerY;
+    }
+    
+    public double getWidth() {
+        return width;
+    }
+    
+    public double getHeight() {
+        return height;
     }
-}
\ No newline at end of file
+}
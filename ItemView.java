@@ -0,0 +1,110 @@
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Shape;
+import javafx.animation.*;
+import javafx.util.Duration;
+
+/**
+ * Draws a collectible item (coin or key) and animates it once collected.
+ */
+public class ItemView {
+    private final Item item;
+    private final Shape shape;
+    private boolean collectedShown = false;
+    private Animation collectAnimation;
+    
+    /**
+     * Creates the shape for an item based on its type.
+     */
+    public ItemView(Item item) {
+        this.item = item;
+        
+        switch (item.getType()) {
+            case "KEY":
+                Rectangle key = new Rectangle(item.getWidth(), item.getHeight());
+                
+                // Position the key (Rectangle coordinates are top-left, not center)
+                key.setX(item.getCenterX() - item.getWidth()/2);
+                key.setY(item.getCenterY() - item.getHeight()/2);
+                
+                // Set appearance
+                key.setFill(Color.GOLD);
+                key.setStroke(Color.DARKORANGE);
+                key.setStrokeWidth(2);
+                key.setArcWidth(GameMap.TILE_SIZE * 0.5);  // Rounded corners
+                key.setArcHeight(GameMap.TILE_SIZE * 0.5);
+                shape = key;
+                break;
+            
+            default:
+                Circle coin = new Circle(item.getCenterX(), item.getCenterY(), item.getWidth()/2);
+                // Set appearance
+                coin.setFill(Color.GOLD);
+                coin.setStroke(Color.DARKGOLDENROD);
+                coin.setStrokeWidth(2);
+                shape = coin;
+        }
+    }
+    
+    /**
+     * Plays the collection animation the first time the item is seen as collected.
+     */
+    public void sync() {
+        if (item.isCollected() && !collectedShown) {
+            collectedShown = true;
+            collectionAnimation();
+        }
+    }
+    
+    /**
+     * Shows or hides the item's shape. Collected items stay hidden (without animating).
+     */
+    public void setShown(boolean shown) {
+        if (item.isCollected()) {
+            collectedShown = true;
+            shown = false;
+        }
+        shape.setVisible(shown);
+    }
+    
+    /**
+     * Puts the shape back in place after its item is made collectable again.
+     */
+    public void reset() {
+        if (collectAnimation != null) {
+            collectAnimation.stop();
+            collectAnimation = null;
+        }
+        shape.setTranslateY(0);
+        shape.setOpacity(1);
+        collectedShown = false;
+    }
+    
+    /**
+     * Plays animation when the item is collected.
+     */
+    private void collectionAnimation(){
+        TranslateTransition ascend = new TranslateTransition(Duration.millis(300), shape);
+        TranslateTransition fall = new TranslateTransition(Duration.millis(300), shape);
+        FadeTransition fade = new FadeTransition(Duration.millis(300), shape);
+        ParallelTransition fadeOut = new ParallelTransition(fall, fade); 
+        
+        ascend.setByY(-20);
+        fall.setByY(30);
+        fade.setFromValue(1);
+        fade.setToValue(0);
+        
+        SequentialTransition transition = new SequentialTransition(ascend,fadeOut);
+        transition.setOnFinished(event -> shape.setVisible(false));
+        collectAnimation = transition;
+        transition.play();
+    }
+    
+    /**
+     * Return the shape for rendering.
+     */
+    public Shape getShape() {
+        return shape;
+    }
+}
@@ -1,6 +1,3 @@
-import javafx.scene.shape.Rectangle;
-import javafx.animation.*;
-
 /**
  * Key class represents a key that can be collected in the game.
  */
@@ -35,14 +32,15 @@ public class Key extends Item {
     public boolean checkCollection(Player player) {
         if (super.isCollected()) return false;
         
-        Rectangle key = super.getKey();
+        // Cheap rejection when the boxes don't even touch
+        if (!getBounds().intersects(player.getBounds())) return false;
         
         // Calculate distance between player center and key center
-        double keyBounds = Math.max(key.getWidth(), key.getHeight()) / 2;
+        double keyBounds = Math.max(getWidth(), getHeight()) / 2;
         double playerX = player.getCenterX();
         double playerY = player.getCenterY();
-        double keyX = key.getX() + key.getWidth()/2;
-        double keyY = key.getY() + key.getHeight()/2;
+        double keyX = getCenterX();
+        double keyY = getCenterY();
         
         double dx = playerX - keyX;
         double dy = playerY - keyY;
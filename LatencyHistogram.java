@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * Records durations (in nanoseconds) into fixed log-linear buckets, so recording is a few
+ * arithmetic operations and never allocates. Each power of two is split into SUB_BUCKETS
+ * equal buckets, which keeps every percentile within about 3% of the true value.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;    // buckets per power of two
+    private static final int MAGNITUDES = 40;                       // up to 2^40 ns (about 18 minutes)
+    
+    private final long[] counts = new long[(MAGNITUDES + 1) * SUB_BUCKETS];
+    private long count;
+    private long max;
+    private long total;
+    
+    /**
+     * Adds one duration.
+     *
+     * @param nanos The duration in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+    
+    /**
+     * Bucket holding a value: values below SUB_BUCKETS get a bucket each,
+     * above that the bucket width doubles with every power of two.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;  // 1 or more
+        if (magnitude > MAGNITUDES) {
+            return (MAGNITUDES + 1) * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (magnitude - 1)) - SUB_BUCKETS;
+        return magnitude * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * Largest value that falls in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return subBucket;
+        }
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (magnitude - 1)) - 1;
+    }
+    
+    /**
+     * The value below which the given fraction of the recorded durations fall.
+     *
+     * @param percentile Fraction from 0 to 100 (i.e 99 for p99)
+     * @return The duration in nanoseconds (never more than the largest recorded), 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * Number of durations recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Longest duration recorded, in nanoseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+    
+    /**
+     * Mean of the recorded durations, in nanoseconds.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+    
+    /**
+     * Forgets everything recorded.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+}
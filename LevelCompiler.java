@@ -0,0 +1,103 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles the level text files (still the source of truth) into a single binary level pack,
+ * which LevelPack memory-maps so rooms load without any text parsing.
+ *
+ * Pack layout (big-endian):
+ *   header:  magic "LPAK", format version, number of rooms
+ *   index:   for each room, its name (length + UTF-8 bytes), then the offset and length of its data
+ *   rooms:   each room as written by RoomTemplate.write (tile grid, entities, patrol segments)
+ *
+ * Usage: java LevelCompiler [levels directory] [pack file]
+ */
+public class LevelCompiler {
+    public static final int MAGIC = 0x4C50414B;     // "LPAK"
+    public static final int VERSION = 1;
+    
+    /**
+     * Compiles the default Levels directory into the default pack file.
+     */
+    public static void main(String[] args) throws IOException {
+        File levelsDir = new File(args.length > 0 ? args[0] : LevelPack.LEVELS_DIR);
+        File packFile = new File(args.length > 1 ? args[1] : LevelPack.PACK_PATH);
+        int rooms = compile(levelsDir, packFile);
+        System.out.println("Compiled " + rooms + " rooms into " + packFile.getPath() + " (" + packFile.length() + " bytes)");
+    }
+    
+    /**
+     * Parses every level file in a directory and writes them all into one pack file.
+     *
+     * @param levelsDir Directory of .txt level files
+     * @param packFile File to write the pack to (replaced if it exists)
+     * @return The number of rooms written
+     * @throws IOException If the pack could not be written
+     */
+    public static int compile(File levelsDir, File packFile) throws IOException {
+        File[] levelFiles = listLevelFiles(levelsDir);
+        
+        // Encode every room first so the index can hold their offsets
+        List<byte[]> names = new ArrayList<>();
+        List<byte[]> rooms = new ArrayList<>();
+        for (File levelFile : levelFiles) {
+            RoomTemplate room = RoomTemplate.parse(levelFile.getPath());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            room.write(new DataOutputStream(bytes));
+            names.add(room.getName().getBytes(StandardCharsets.UTF_8));
+            rooms.add(bytes.toByteArray());
+        }
+        
+        int indexSize = 0;
+        for (byte[] name : names) {
+            indexSize += 2 + name.length + 4 + 4;
+        }
+        int offset = 12 + indexSize;    // rooms start after the header and index
+        
+        // Write to a temporary file first so a half written pack is never picked up
+        File tempFile = new File(packFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rooms.size());
+            
+            for (int i = 0; i < rooms.size(); i++) {
+                out.writeShort(names.get(i).length);
+                out.write(names.get(i));
+                out.writeInt(offset);
+                out.writeInt(rooms.get(i).length);
+                offset += rooms.get(i).length;
+            }
+            for (byte[] room : rooms) {
+                out.write(room);
+            }
+        }
+        
+        if (packFile.exists() && !packFile.delete()) {
+            throw new IOException("Could not replace " + packFile.getPath());
+        }
+        if (!tempFile.renameTo(packFile)) {
+            throw new IOException("Could not write " + packFile.getPath());
+        }
+        return rooms.size();
+    }
+    
+    /**
+     * The .txt level files in a directory, sorted by name.
+     */
+    public static File[] listLevelFiles(File levelsDir) {
+        File[] files = levelsDir.listFiles((dir, name) -> name.toLowerCase().endsWith(".txt"));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+}
@@ -1,15 +1,30 @@
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Handles level generation and management for the game.
  */
 public class LevelManager {
-    private List<String> levelPaths;
+    // Worker threads that build the rooms of a level in parallel (shared by every level manager)
+    private static final ExecutorService roomLoader = Executors.newFixedThreadPool(
+        Math.min(Game.NO_OF_SCREENS, Runtime.getRuntime().availableProcessors()), task -> {
+            Thread thread = new Thread(task, "room-loader");
+            thread.setDaemon(true);     // never keep the application alive
+            return thread;
+        });
+    
+    private List<String> levelPaths;   // names of the rooms not used yet
     private final Random rand;
     
+    // Every room built (or being built) so far, reset and reused by later levels rather than built again
+    private final Map<String, CompletableFuture<GameMap>> builtRooms = new ConcurrentHashMap<>();
+    
     /**
      * Creates a level manager that loads available levels.
      */
@@ -19,68 +34,146 @@ public class LevelManager {
     }
     
     /**
-     * Scans the Levels directory and collects paths to all .txt files.
+     * Collects the names of the rooms that can be picked at random (every room but the fixed ones).
      */
     private void loadLevelPaths() {
-        try {
-            
-            // Get the path to the Levels directory
-            File levelsDir = new File("Levels");
-            
-            levelPaths = new ArrayList<>();
-            
-            // Check if directory exists
-            if (!levelsDir.exists() || !levelsDir.isDirectory()) {
-                System.err.println("Levels directory not found!");
-                return;
+        levelPaths = new ArrayList<>();
+        for (String name : LevelPack.get().getRoomNames()) {
+            if (!name.equals("playerRoom") && !name.equals("keyRoom") && !name.equals("endRoom")) {
+                levelPaths.add(name);
             }
-            
-            // List all files in the directory
-            File[] files = levelsDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    // Only add .txt files
-                    if (file.isFile() && file.getName().toLowerCase().endsWith(".txt") && !file.getName().equals("playerRoom.txt") && !file.getName().equals("keyRoom.txt") && !file.getName().equals("endRoom.txt")) {
-                        levelPaths.add(file.getPath());
-                        //System.out.println("Found level: " + file.getPath());
-                    }
-                }
+        }
+    }
+    
+    /**
+     * Returns a room in its starting state, started building on a worker thread the first time it is asked for
+     * and reset in place after that. Each room is only ever built once, even if two levels ask for it together.
+     */
+    private CompletableFuture<GameMap> loadRoom(String name) {
+        boolean[] building = {false};
+        CompletableFuture<GameMap> built = builtRooms.computeIfAbsent(name, key -> {
+            building[0] = true;
+            return CompletableFuture.supplyAsync(() -> buildRoom(key), roomLoader);
+        });
+        if (!building[0]) {
+            return built.thenApply(room -> resetRoom(name, room));
+        }
+        
+        // A room that failed to build is tried again next time
+        built.whenComplete((room, error) -> {
+            if (error != null) {
+                builtRooms.remove(name, built);
             }
-            
-            //System.out.println("Total levels found: " + levelPaths.size());
-        } catch (Exception e) {
-            System.err.println("Error loading levels: " + e.getMessage());
-            e.printStackTrace();
+        });
+        return built;
+    }
+    
+    /**
+     * Builds a room from its layout.
+     */
+    private GameMap buildRoom(String name) {
+        GameEvents.MapLoadEvent event = new GameEvents.MapLoadEvent();
+        event.begin();
+        GameMap room = new GameMap(LevelPack.get().getRoom(name));
+        commitLoadEvent(event, name, room);
+        return room;
+    }
+    
+    /**
+     * Puts a room built before back in its starting state.
+     */
+    private GameMap resetRoom(String name, GameMap room) {
+        GameEvents.MapLoadEvent event = new GameEvents.MapLoadEvent();
+        event.begin();
+        room.reset();
+        event.reused = true;
+        commitLoadEvent(event, name, room);
+        return room;
+    }
+    
+    private static void commitLoadEvent(GameEvents.MapLoadEvent event, String name, GameMap room) {
+        if (event.shouldCommit()) {
+            event.name = name;
+            event.width = room.getWidth();
+            event.height = room.getHeight();
+            event.coins = room.getCoins().size();
+            event.traps = room.getTraps().size();
+            event.commit();
         }
     }
     
     /**
-     * Create a random room for available level files.
+     * Picks the name of a random room that hasn't been used yet.
      */
-    public GameMap generateRandomRoom() {
+    private String pickRandomRoom() {
         int randIndex = rand.nextInt(levelPaths.size());
-        GameMap newMap = new GameMap(levelPaths.get(randIndex));
-        levelPaths.remove(randIndex);
-        return newMap;
+        return levelPaths.remove(randIndex);
+    }
+    
+    /**
+     * Number of rooms built so far (kept for reuse by later levels).
+     */
+    public int getBuiltRoomCount() {
+        return builtRooms.size();
     }
     
     /**
      * Generate a complete game level ( includes player start, key and exit rooms).
+     * Rooms used before are reset in place, new ones are built in parallel (so this takes
+     * about as long as the largest new room).
      */
     public GameMap[] generateLevel() {
-        GameMap[] levelMaps = new GameMap[Game.NO_OF_SCREENS];
-        levelMaps[0] = new GameMap("Levels/playerRoom.txt");
-        levelMaps[rand.nextInt(1, Game.NO_OF_SCREENS-1)] = new GameMap("Levels/keyRoom.txt");
-        levelMaps[Game.NO_OF_SCREENS-1] = new GameMap("Levels/endRoom.txt");
+        return generateLevelAsync().join();
+    }
+    
+    /**
+     * Starts building a complete game level on the worker threads, one task per room.
+     * Only the model is built, the views still need creating on the JavaFX thread afterwards.
+     * The rooms of any level generated before must no longer be in use, as they may be reused.
+     * 
+     * @return A future that completes with the rooms of the level, in order
+     */
+    public CompletableFuture<GameMap[]> generateLevelAsync() {
+        // Timed until the last room is loaded, on whichever thread that is
+        GameEvents.GenerateLevelEvent event = new GameEvents.GenerateLevelEvent();
+        event.begin();
+        loadLevelPaths();   // every room can be picked again
+        
+        String[] roomNames = new String[Game.NO_OF_SCREENS];
+        roomNames[0] = "playerRoom";
+        roomNames[rand.nextInt(1, Game.NO_OF_SCREENS-1)] = "keyRoom";
+        roomNames[Game.NO_OF_SCREENS-1] = "endRoom";
         
-        // Picks individual rooms for the level
+        // Picks individual rooms for the level (on this thread, so the random order stays the same)
         for (int i = 0; i < Game.NO_OF_SCREENS; i++) {
-            if (levelMaps[i] == null) {
-                levelMaps[i] = generateRandomRoom();
+            if (roomNames[i] == null) {
+                roomNames[i] = pickRandomRoom();
+            }
+        }
+        
+        // Rooms built before are reset on this thread (if they are ready), new ones built on the workers
+        List<CompletableFuture<GameMap>> rooms = new ArrayList<>();
+        int reusedRooms = 0;
+        for (String name : roomNames) {
+            if (builtRooms.containsKey(name)) {
+                reusedRooms++;
             }
+            rooms.add(loadRoom(name));
         }
         
-        return levelMaps;
+        int reused = reusedRooms;
+        return CompletableFuture.allOf(rooms.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            GameMap[] levelMaps = new GameMap[Game.NO_OF_SCREENS];
+            for (int i = 0; i < Game.NO_OF_SCREENS; i++) {
+                levelMaps[i] = rooms.get(i).join();
+            }
+            
+            if (event.shouldCommit()) {
+                event.rooms = levelMaps.length;
+                event.reusedRooms = reused;
+                event.commit();
+            }
+            return levelMaps;
+        });
     }
-    
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every room of the game, read from the compiled level pack (see LevelCompiler).
+ * The pack is memory-mapped, so loading a room is only a bounds-checked copy out of the mapping.
+ * It is recompiled from the level text files whenever it is missing or older than them
+ * (checked without mapping it, and only the up to date pack is mapped),
+ * and if it can't be written the rooms are parsed from the text files instead.
+ */
+public final class LevelPack {
+    public static final String LEVELS_DIR = "Levels";
+    public static final String PACK_PATH = "Levels/levels.pack";
+    
+    private static LevelPack instance;
+    
+    private final File levelsDir;
+    private final ByteBuffer buffer;                        // the mapped pack (null when parsing the text files)
+    private final Map<String, int[]> index = new LinkedHashMap<>();    // room name to {offset, length}
+    private final Map<String, RoomTemplate> parsedRooms = new LinkedHashMap<>();
+    
+    /**
+     * Returns the game's level pack, opening it the first time it is needed.
+     * The Levels directory is only checked then, not on every new level.
+     */
+    public static synchronized LevelPack get() {
+        if (instance == null) {
+            instance = open(new File(LEVELS_DIR), new File(PACK_PATH));
+        }
+        return instance;
+    }
+    
+    /**
+     * Opens a level pack, compiling it first if it is out of date with the level files.
+     *
+     * @param levelsDir Directory of .txt level files
+     * @param packFile The compiled pack
+     * @return The rooms, from the pack or (if it can't be used) parsed from the text files
+     */
+    public static LevelPack open(File levelsDir, File packFile) {
+        if (!levelsDir.isDirectory()) {
+            System.err.println("Levels directory not found!");
+        }
+        
+        try {
+            if (isStale(levelsDir, packFile)) {
+                LevelCompiler.compile(levelsDir, packFile);
+            }
+            return openMapped(levelsDir, packFile);
+        } catch (IOException e) {
+            System.err.println("Error loading level pack, reading the level files instead: " + e.getMessage());
+            return new LevelPack(levelsDir, null);
+        }
+    }
+    
+    private LevelPack(File levelsDir, ByteBuffer buffer) {
+        this.levelsDir = levelsDir;
+        this.buffer = buffer;
+        if (buffer == null) {
+            for (File levelFile : LevelCompiler.listLevelFiles(levelsDir)) {
+                RoomTemplate room = RoomTemplate.parse(levelFile.getPath());
+                parsedRooms.put(room.getName(), room);
+            }
+        }
+    }
+    
+    /**
+     * Maps a compiled pack and reads its index.
+     */
+    private static LevelPack openMapped(File levelsDir, File packFile) throws IOException {
+        LevelPack pack = new LevelPack(levelsDir, map(packFile));
+        pack.readIndex();
+        return pack;
+    }
+    
+    /**
+     * Maps the whole pack file into memory (read only).
+     */
+    private static MappedByteBuffer map(File packFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+    
+    /**
+     * Reads the whole pack into memory with plain reads (the pack is only a few KB).
+     * Used to check the pack before compiling, as a mapped file can't be deleted or replaced
+     * on Windows until the mapping is garbage collected.
+     */
+    private static ByteBuffer read(File packFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Level pack too large");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until full or at the end of the file
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+    
+    /**
+     * Whether the pack needs (re)compiling: it is missing, from another format version,
+     * older than a level file or doesn't hold exactly the rooms in the directory.
+     */
+    private static boolean isStale(File levelsDir, File packFile) {
+        if (!packFile.isFile()) {
+            return true;
+        }
+        
+        Set<String> roomNames = new HashSet<>();
+        for (File levelFile : LevelCompiler.listLevelFiles(levelsDir)) {
+            if (levelFile.lastModified() > packFile.lastModified()) {
+                return true;
+            }
+            roomNames.add(levelFile.getName().replaceFirst("\\.txt$", ""));
+        }
+        
+        try {
+            // Not mapped, so the compiler can still replace the file if it is stale
+            LevelPack pack = new LevelPack(levelsDir, read(packFile));
+            pack.readIndex();
+            return !pack.index.keySet().equals(roomNames);
+        } catch (IOException e) {
+            return true;    // unreadable or an older format
+        }
+    }
+    
+    /**
+     * Reads the header and the room index, checking every room lies inside the pack.
+     */
+    private void readIndex() throws IOException {
+        try {
+            ByteBuffer header = buffer.duplicate();
+            if (header.getInt() != LevelCompiler.MAGIC) {
+                throw new IOException("Not a level pack");
+            }
+            if (header.getInt() != LevelCompiler.VERSION) {
+                throw new IOException("Unsupported level pack version");
+            }
+            
+            int roomCount = header.getInt();
+            for (int i = 0; i < roomCount; i++) {
+                byte[] name = new byte[header.getShort()];
+                header.get(name);
+                int offset = header.getInt();
+                int length = header.getInt();
+                if (offset < 0 || length < 0 || (long) offset + length > buffer.limit()) {
+                    throw new IOException("Room outside the level pack");
+                }
+                index.put(new String(name, StandardCharsets.UTF_8), new int[] {offset, length});
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt level pack header", e);
+        }
+    }
+    
+    /**
+     * Names of every room in the pack, in name order.
+     */
+    public List<String> getRoomNames() {
+        return Collections.unmodifiableList(new ArrayList<>(buffer != null ? index.keySet() : parsedRooms.keySet()));
+    }
+    
+    /**
+     * Loads a room (safe to call from several threads at once).
+     * Rooms that aren't in the pack are parsed from their level file instead.
+     *
+     * @param name Name of the room (its level file name without ".txt")
+     * @return The room's layout
+     */
+    public RoomTemplate getRoom(String name) {
+        if (buffer == null) {
+            RoomTemplate room = parsedRooms.get(name);
+            return room != null ? room : RoomTemplate.parse(new File(levelsDir, name + ".txt").getPath());
+        }
+        
+        int[] entry = index.get(name);
+        if (entry != null) {
+            try {
+                // Absolute slice, so threads never share a read position
+                return RoomTemplate.read(buffer.slice(entry[0], entry[1]));
+            } catch (IOException e) {
+                System.err.println("Error reading room " + name + " from the level pack: " + e.getMessage());
+            }
+        }
+        return RoomTemplate.parse(new File(levelsDir, name + ".txt").getPath());
+    }
+}
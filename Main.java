@@ -13,6 +13,9 @@ public class Main extends Application
     @Override
     public void start(Stage stage)
     {
+        // Decode tile sprites in the background while the screens are built
+        SpriteCache.warmUp(Tile.SPRITE_PATHS);
+        
         GameManager gameManager = new GameManager(stage);
         gameManager.showTitleScreen();
     }
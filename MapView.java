@@ -0,0 +1,371 @@
+import javafx.scene.Group;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws a GameMap: the tile sprites plus a view for every coin, key and trap in the room.
+ * The map itself stays plain model state, this class keeps the nodes in sync with it.
+ * 
+ * The room is split into square chunks of tiles. Only the chunks inside or next to the viewport
+ * are in the scene: each has its tiles painted once into a single background image, plus the nodes
+ * of the coins, key and spikes in it. Chunks further away are dropped, so rooms many screens wide
+ * cost no more per frame (or memory) than the part on screen.
+ * 
+ * Tiles that can change (i.e the exit) get a node of their own instead. The view listens to them
+ * and only updates a tile's node on the frame after it changes.
+ */
+public class MapView implements TileListener {
+    public static final int CHUNK_TILES = 16;      // width and height of a chunk in tiles
+    
+    private final GameMap map;
+    private final Pane mapPane;
+    private final Group backgroundLayer = new Group();
+    private final Group entityLayer = new Group();
+    
+    // Chunk grid
+    private final int chunkCols;
+    private final int chunkRows;
+    private final ImageView[] chunkBackgrounds;     // baked tiles of each active chunk (null when inactive)
+    private final List<List<ItemView>> chunkItems;  // coins and key in each chunk
+    private final List<List<TrapView>> chunkSpikes; // traps that never move in each chunk
+    
+    // Range of chunks currently in the scene (none to start with)
+    private int activeFromCol = 0;
+    private int activeToCol = -1;
+    private int activeFromRow = 0;
+    private int activeToRow = -1;
+    
+    // Views of the room's entities
+    private final List<ItemView> itemViews;
+    private final List<TrapView> movingTrapViews;   // culled by where they are each frame instead
+    private boolean entitiesShown = true;
+    
+    // Nodes of the mutable tiles, and the tiles that changed since the last sync
+    private final Map<Tile, ImageView> mutableTileViews = new HashMap<>();
+    private final List<Tile> dirtyTiles = new ArrayList<>();
+    
+    /**
+     * Creates the views for every entity of a map (the tiles are only drawn once their chunk is in view).
+     */
+    public MapView(GameMap map) {
+        this.map = map;
+        mapPane = new Pane();
+        itemViews = new ArrayList<>();
+        movingTrapViews = new ArrayList<>();
+        
+        chunkCols = (map.getWidth() + CHUNK_TILES - 1) / CHUNK_TILES;
+        chunkRows = (map.getHeight() + CHUNK_TILES - 1) / CHUNK_TILES;
+        chunkBackgrounds = new ImageView[chunkCols * chunkRows];
+        chunkItems = new ArrayList<>();
+        chunkSpikes = new ArrayList<>();
+        for (int i = 0; i < chunkCols * chunkRows; i++) {
+            chunkItems.add(new ArrayList<>());
+            chunkSpikes.add(new ArrayList<>());
+        }
+        
+        // Tiles first so entities are always drawn on top of them
+        mapPane.getChildren().add(backgroundLayer);
+        for (Tile tile : map.getMutableTiles()) {
+            addMutableTile(tile);
+        }
+        mapPane.getChildren().add(entityLayer);
+        
+        for (Coin coin : map.getCoins()) {
+            addItem(coin);
+        }
+        if (map.getKey() != null) {
+            addItem(map.getKey());
+        }
+        for (Trap trap : map.getTraps()) {
+            TrapView trapView = new TrapView(trap);
+            if (trap instanceof MovingSpike) {
+                movingTrapViews.add(trapView);
+            }
+            else {
+                chunkSpikes.get(chunkAt(trap.getCenterX(), trap.getCenterY())).add(trapView);
+            }
+        }
+    }
+    
+    /**
+     * Number of the chunk containing a point (clamped to the room).
+     */
+    private int chunkAt(double x, double y) {
+        int chunkSize = CHUNK_TILES * GameMap.TILE_SIZE;
+        int col = Math.max(0, Math.min(chunkCols - 1, (int) Math.floor(x / chunkSize)));
+        int row = Math.max(0, Math.min(chunkRows - 1, (int) Math.floor(y / chunkSize)));
+        return col + row * chunkCols;
+    }
+    
+    /**
+     * Paints the tiles of a chunk (except mutable ones like the exit) onto a canvas and takes a snapshot of it,
+     * so the chunk's static background is a single image.
+     */
+    private ImageView bakeChunk(int col, int row) {
+        int tileSize = GameMap.TILE_SIZE;
+        int firstX = col * CHUNK_TILES;
+        int firstY = row * CHUNK_TILES;
+        int lastX = Math.min(map.getWidth(), firstX + CHUNK_TILES);
+        int lastY = Math.min(map.getHeight(), firstY + CHUNK_TILES);
+        
+        Canvas canvas = new Canvas((lastX - firstX) * tileSize, (lastY - firstY) * tileSize);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.translate(-firstX * tileSize, -firstY * tileSize);
+        
+        Tile[][] tiles = map.getTile();
+        for (int y = firstY; y < lastY; y++) {
+            for (int x = firstX; x < lastX; x++) {
+                if (tiles[x][y] != null && !tiles[x][y].isMutable()) {
+                    drawTile(gc, tiles[x][y]);
+                }
+            }
+        }
+        
+        // Cells without a tile stay see-through, as they were before
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        ImageView background = new ImageView(canvas.snapshot(parameters, null));
+        background.setTranslateX(firstX * tileSize);
+        background.setTranslateY(firstY * tileSize);
+        return background;
+    }
+    
+    /**
+     * Paints the sprite (or a plain rectangle if it has none) for a tile.
+     */
+    private void drawTile(GraphicsContext gc, Tile tile) {
+        AABB bounds = tile.getBounds();
+        double width = bounds.getMaxX() - bounds.getMinX();
+        double height = bounds.getMaxY() - bounds.getMinY();
+        
+        if (tile.hasSprite()) {
+            // Shared image, only decoded the first time the path is used
+            Image image = loadSprite(tile.getSpritePath());
+            if (image != null) {
+                gc.drawImage(image, bounds.getMinX(), bounds.getMinY(), width, height);
+            }
+            else {
+                // If image loading fails, use a default color
+                gc.setFill(Color.DARKGRAY);
+                gc.fillRect(bounds.getMinX(), bounds.getMinY(), width, height);
+                gc.setStroke(Color.BLACK);
+                gc.setLineWidth(1);
+                gc.strokeRect(bounds.getMinX(), bounds.getMinY(), width, height);
+            }
+        }
+        else {
+            gc.setFill(Color.WHITE);
+            gc.fillRect(bounds.getMinX(), bounds.getMinY(), width, height);
+        }
+    }
+    
+    /**
+     * Adds a tile that can change (i.e the exit) as its own node and listens for its changes.
+     */
+    private void addMutableTile(Tile tile) {
+        AABB bounds = tile.getBounds();
+        ImageView tileView = new ImageView(tile.hasSprite() ? loadSprite(tile.getSpritePath()) : null);
+        tileView.setFitWidth(bounds.getMaxX() - bounds.getMinX());
+        tileView.setFitHeight(bounds.getMaxY() - bounds.getMinY());
+        tileView.setTranslateX(bounds.getMinX());
+        tileView.setTranslateY(bounds.getMinY());
+        mutableTileViews.put(tile, tileView);
+        mapPane.getChildren().add(tileView);
+        tile.addListener(this);
+    }
+    
+    /**
+     * Marks a tile to be redrawn on the next sync (the model can change it more than once a frame).
+     */
+    @Override
+    public void tileChanged(Tile tile) {
+        if (!dirtyTiles.contains(tile)) {
+            dirtyTiles.add(tile);
+        }
+    }
+    
+    /**
+     * Gets a sprite from the cache, or null if it could not be loaded.
+     */
+    private Image loadSprite(String path) {
+        try {
+            return SpriteCache.get(path);
+        } catch (Exception e) {
+            System.err.println("Failed to load image: " + path);
+            return null;
+        }
+    }
+    
+    /**
+     * Adds the view for a coin or key.
+     */
+    private void addItem(Item item) {
+        ItemView itemView = new ItemView(item);
+        itemViews.add(itemView);
+        chunkItems.get(chunkAt(item.getCenterX(), item.getCenterY())).add(itemView);
+    }
+    
+    /**
+     * Brings the set of chunks in the scene up to date with the viewport: chunks inside or next to
+     * it are baked and added along with their entities, any others are dropped.
+     */
+    private void updateActiveChunks(double viewX, double viewY, double viewWidth, double viewHeight) {
+        int chunkSize = CHUNK_TILES * GameMap.TILE_SIZE;
+        int fromCol = Math.max(0, (int) Math.floor(viewX / chunkSize) - 1);
+        int toCol = Math.min(chunkCols - 1, (int) Math.floor((viewX + viewWidth) / chunkSize) + 1);
+        int fromRow = Math.max(0, (int) Math.floor(viewY / chunkSize) - 1);
+        int toRow = Math.min(chunkRows - 1, (int) Math.floor((viewY + viewHeight) / chunkSize) + 1);
+        
+        if (fromCol == activeFromCol && toCol == activeToCol && fromRow == activeFromRow && toRow == activeToRow) {
+            return;
+        }
+        
+        // Drop the chunks that are now too far away
+        for (int row = activeFromRow; row <= activeToRow; row++) {
+            for (int col = activeFromCol; col <= activeToCol; col++) {
+                if (col < fromCol || col > toCol || row < fromRow || row > toRow) {
+                    deactivateChunk(col + row * chunkCols);
+                }
+            }
+        }
+        
+        // Add the chunks that have come near
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                if (col < activeFromCol || col > activeToCol || row < activeFromRow || row > activeToRow) {
+                    activateChunk(col, row);
+                }
+            }
+        }
+        
+        activeFromCol = fromCol;
+        activeToCol = toCol;
+        activeFromRow = fromRow;
+        activeToRow = toRow;
+    }
+    
+    private void activateChunk(int col, int row) {
+        int chunk = col + row * chunkCols;
+        chunkBackgrounds[chunk] = bakeChunk(col, row);
+        backgroundLayer.getChildren().add(chunkBackgrounds[chunk]);
+        
+        for (ItemView itemView : chunkItems.get(chunk)) {
+            entityLayer.getChildren().add(itemView.getShape());
+        }
+        entityLayer.getChildren().addAll(chunkSpikes.get(chunk));
+    }
+    
+    private void deactivateChunk(int chunk) {
+        // The baked image is let go, so memory only holds the chunks in view
+        backgroundLayer.getChildren().remove(chunkBackgrounds[chunk]);
+        chunkBackgrounds[chunk] = null;
+        
+        for (ItemView itemView : chunkItems.get(chunk)) {
+            entityLayer.getChildren().remove(itemView.getShape());
+        }
+        entityLayer.getChildren().removeAll(chunkSpikes.get(chunk));
+    }
+    
+    /**
+     * Whether a point lies in one of the chunks currently in the scene.
+     */
+    private boolean isInActiveChunk(double x, double y) {
+        int chunk = chunkAt(x, y);
+        int col = chunk % chunkCols;
+        int row = chunk / chunkCols;
+        return col >= activeFromCol && col <= activeToCol && row >= activeFromRow && row <= activeToRow;
+    }
+    
+    /**
+     * Shows or hides the coin, key and trap nodes (hidden while EntityCanvas draws them instead).
+     */
+    public void setEntitiesShown(boolean shown) {
+        entitiesShown = shown;
+        entityLayer.setVisible(shown);
+        for (int i = 0; i < itemViews.size(); i++) {
+            itemViews.get(i).setShown(shown);
+        }
+    }
+    
+    /**
+     * Puts the item nodes back after the map has been reset, so the view can be reused for a new game.
+     */
+    public void reset() {
+        for (int i = 0; i < itemViews.size(); i++) {
+            itemViews.get(i).reset();
+        }
+        setEntitiesShown(entitiesShown);
+    }
+    
+    /**
+     * Brings the nodes up to date with the map's state, for the part of the room in view.
+     *
+     * @param alpha How far (0 to 1) the render time is between the previous and current simulation step
+     * @param viewX Left edge of the viewport in room coordinates
+     * @param viewY Top edge of the viewport in room coordinates
+     * @param viewWidth Width of the viewport
+     * @param viewHeight Height of the viewport
+     */
+    public void sync(double alpha, double viewX, double viewY, double viewWidth, double viewHeight) {
+        updateActiveChunks(viewX, viewY, viewWidth, viewHeight);
+        
+        if (entitiesShown) {
+            // Moving traps go in and out of the scene as they cross chunks
+            for (int i = 0; i < movingTrapViews.size(); i++) {
+                TrapView trapView = movingTrapViews.get(i);
+                boolean inScene = trapView.getParent() == entityLayer;
+                if (isInActiveChunk(trapView.getTrap().getCenterX(), trapView.getTrap().getCenterY())) {
+                    if (!inScene) {
+                        entityLayer.getChildren().add(trapView);
+                    }
+                    trapView.sync(alpha);
+                }
+                else if (inScene) {
+                    entityLayer.getChildren().remove(trapView);
+                }
+            }
+            
+            // Items can only be collected near the player, so only the active chunks need checking
+            for (int row = activeFromRow; row <= activeToRow; row++) {
+                for (int col = activeFromCol; col <= activeToCol; col++) {
+                    List<ItemView> items = chunkItems.get(col + row * chunkCols);
+                    for (int i = 0; i < items.size(); i++) {
+                        items.get(i).sync();
+                    }
+                }
+            }
+        }
+        
+        // Redraw only the tiles that changed (i.e the exit opening)
+        for (int i = 0; i < dirtyTiles.size(); i++) {
+            Tile tile = dirtyTiles.get(i);
+            mutableTileViews.get(tile).setImage(tile.hasSprite() ? loadSprite(tile.getSpritePath()) : null);
+        }
+        dirtyTiles.clear();
+    }
+    
+    /**
+     * Returns the Pane containing the entire game map
+     *
+     * @return The Pane containing all map nodes
+     */
+    public Pane getMapPane() {
+        return mapPane;
+    }
+    
+    /**
+     * Returns the map drawn by this view.
+     */
+    public GameMap getMap() {
+        return map;
+    }
+}
@@ -1,5 +1,3 @@
-import javafx.scene.paint.Color;
-
 /**
  * A spike trap that moves horizontally and changes direction with turning points.
  */
@@ -7,40 +5,63 @@ public class MovingSpike extends Trap {
     private static final double MOVE_SPEED = 1.0;
     private double direction = -1.0;
     
-    private final double turnCooldown = 1; // 1 second cooldown
-    private double lastTurn = 0.0;
+    // Center positions where the spike turns round, from the turn points on its row (none by default)
+    private double leftTurnX = Double.NEGATIVE_INFINITY;
+    private double rightTurnX = Double.POSITIVE_INFINITY;
     
     /**
      * Create a new moving spike trap at the specified position.
      */
     public MovingSpike(double x, double y, double size)
     {
-        super(x, y, size, 10, Color.SILVER);
-        
+        super(x, y, size, 10);
     }
     
     /**
-     * Changes the direction of movement if cooldown period has passed.
+     * Sets the patrol segment, worked out once when the level loads.
+     * 
+     * @param leftTurnX Center x-coordinate at which the spike turns back when moving left
+     * @param rightTurnX Center x-coordinate at which the spike turns back when moving right
+     */
+    public void setPatrol(double leftTurnX, double rightTurnX) {
+        this.leftTurnX = leftTurnX;
+        this.rightTurnX = rightTurnX;
+    }
+    
+    /**
+     * Changes the direction of movement.
      */
     public void turn() {
-        if (lastTurn > turnCooldown){
-            direction *= -1;
-            lastTurn = 0.0;
-        }
+        direction *= -1;
+    }
+    
+    /**
+     * Puts the spike back where it started, heading left again.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        direction = -1.0;
     }
     
     /**
-     * Update trap position, check for player collision and manage the cooldown.
+     * Update trap position and manage the cooldowns.
      */
     @Override
-    public void update(Player player, double deltaTime) {
-        super.update(player, deltaTime);
+    public void advance(double deltaTime) {
+        super.advance(deltaTime);
+        previousX = centerX;
         
         // Move  enemy
         centerX += MOVE_SPEED * direction * deltaTime * 60;
         
-        drawTriangle();
+        // Turn round at the ends of the patrol (only when heading towards that end)
+        if ((direction < 0 && centerX <= leftTurnX) || (direction > 0 && centerX >= rightTurnX)) {
+            turn();
+        }
+        
+        updateBounds();
+        
         lastDamageTime += deltaTime;
-        lastTurn += deltaTime;
     }
-}
\ No newline at end of file
+}
@@ -99,7 +99,7 @@ public class PauseScreen extends BaseScreen {
     /**
      * Hides the pause overlay.
      */
-    private void hidePauseScreen(){
+    public void hidePauseScreen(){
         overlayStage.hide();
     }
     
@@ -1,24 +1,28 @@
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.input.KeyCode;
-
-import java.util.HashMap;
-
 /**
  * Player class which is represented by a circle and can interact with the environment surrouding it!.
+ * Holds only the simulation state, it is drawn by PlayerView.
  */
-public class Player extends Circle {
+public class Player {
     // Physics 
     private static final double GRAVITY = 0.8;
     private static final double MAX_VELOCITY = 10;
     private static final double JUMP_FORCE = -17;       // Player can jump up 4 tiles
     private static final double MOVE_SPEED = 3.5;       // Player can jump 4 wide gaps
     
+    // Position and size
+    private double centerX;
+    private double centerY;
+    private final double radius;
+    
     // Movement states 
     private double velocityX = 0;
     private double velocityY = 0;
     private boolean isOnGround = true;
     
+    // Position at the start of the current step (for render interpolation)
+    private double previousX;
+    private double previousY;
+    
     // Keys
     private boolean leftPressed = false;
     private boolean rightPressed = false;
@@ -28,43 +32,67 @@ public class Player extends Circle {
     private boolean isAlive = true;
     private int health = 100;
     
+    // Collision box, updated in place rather than reallocated every frame
+    private final AABB bounds = new AABB(0, 0, 0, 0);
+    
     
     /**
      * Creates a new player at the specified position with the given radius
      */
     public Player(double centerX, double centerY, double radius) {
-        super(centerX, centerY, radius, Color.RED);
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radius = radius;
+        resetInterpolation();
+    }
+    
+    /**
+     * Puts the player back to a fresh state at a new position (used when restarting the game).
+     */
+    public void reset(double centerX, double centerY) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        velocityX = 0;
+        velocityY = 0;
+        isOnGround = true;
+        isAlive = true;
+        health = 100;
+        resetInputState();
+        resetInterpolation();
+    }
+    
+    /**
+     * Sets whether the move left control is held down
+     */
+    public void setLeftPressed(boolean pressed) {
+        leftPressed = pressed;
     }
     
     /**
-     * Updates key state when a key is pressed
+     * Sets whether the move right control is held down
      */
-    public void handleKeyPressed(KeyCode code) {
-        if (code == KeyCode.LEFT || code == KeyCode.A ) 
-            leftPressed = true;
-        if (code == KeyCode.RIGHT || code == KeyCode.D ) 
-            rightPressed = true;
-        if (code == KeyCode.SPACE) 
-            jumpPressed = true;
+    public void setRightPressed(boolean pressed) {
+        rightPressed = pressed;
     }
     
     /**
-     * Updates key state when a key is released
+     * Sets whether the jump control is held down
      */
-    public void handleKeyReleased(KeyCode code) {
-        if (code == KeyCode.LEFT || code == KeyCode.A ) 
-            leftPressed = false;
-        if (code == KeyCode.RIGHT || code == KeyCode.D ) 
-            rightPressed = false;
-        if (code == KeyCode.SPACE) 
-            jumpPressed = false;
+    public void setJumpPressed(boolean pressed) {
+        jumpPressed = pressed;
     }
     
+    /**
+     * Updates the player's velocity from input and gravity.
+     */
     public void update(double deltaTime) {
         if (!isAlive){
             return;
         }
         
+        previousX = centerX;
+        previousY = centerY;
+        
         // Apply horizontal movement
         if(leftPressed) {      
             velocityX = -MOVE_SPEED;
@@ -87,14 +115,73 @@ public class Player extends Circle {
         if (velocityY > MAX_VELOCITY){
             velocityY = MAX_VELOCITY;
         }
-            
-        setCenterX(getCenterX() + velocityX * deltaTime * 60);
-        setCenterY(getCenterY() + velocityY * deltaTime * 60);
+        
+        // The position itself is moved by Game, which sweeps the movement against the terrain
+    }
+    
+    /**
+     * Distance the player wants to move along the X-axis this step.
+     */
+    public double getDisplacementX(double deltaTime) {
+        return velocityX * deltaTime * 60;
+    }
+    
+    /**
+     * Distance the player wants to move along the Y-axis this step.
+     */
+    public double getDisplacementY(double deltaTime) {
+        return velocityY * deltaTime * 60;
+    }
+    
+    /**
+     * X position to draw the player at, between the previous and current step.
+     * 
+     * @param alpha How far (0 to 1) the render time is between the previous and current step
+     */
+    public double getRenderX(double alpha) {
+        return previousX + (centerX - previousX) * alpha;
+    }
+    
+    /**
+     * Y position to draw the player at, between the previous and current step.
+     * 
+     * @param alpha How far (0 to 1) the render time is between the previous and current step
+     */
+    public double getRenderY(double alpha) {
+        return previousY + (centerY - previousY) * alpha;
+    }
+    
+    /**
+     * Treats the current position as the previous one so the next frame isn't blended (i.e after teleporting).
+     */
+    public void resetInterpolation() {
+        previousX = centerX;
+        previousY = centerY;
     }
     
     /**
      * Getter and setter methods for GameScreen to use
      */
+    public double getCenterX() {
+        return centerX;
+    }
+    
+    public void setCenterX(double centerX) {
+        this.centerX = centerX;
+    }
+    
+    public double getCenterY() {
+        return centerY;
+    }
+    
+    public void setCenterY(double centerY) {
+        this.centerY = centerY;
+    }
+    
+    public double getRadius() {
+        return radius;
+    }
+    
     public double getVelocityX() {
         return velocityX;
     }
@@ -144,15 +231,11 @@ public class Player extends Circle {
     }
     
     /**
-     * Returns a hashmap of the 4 coordinates of each pole of the player
+     * Returns the player's bounding box, refreshed from the current position (reuses the same object).
      */
-    public HashMap<String, Double> getEdges(){
-        HashMap<String, Double> edges = new HashMap<>();
-        edges.put("top", getCenterY() + getRadius());
-        edges.put("bottom", getCenterY() - getRadius());
-        edges.put("left", getCenterX() - getRadius());
-        edges.put("right", getCenterX() + getRadius());
-        return edges;
+    public AABB getBounds(){
+        bounds.setFromCircle(centerX, centerY, radius);
+        return bounds;
     }
     
     /**
@@ -168,5 +251,5 @@ public class Player extends Circle {
         velocityX = 0;
         velocityY = 0;
     }
-    
+
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+
+/**
+ * Draws the player as a red circle, following the Player model.
+ */
+public class PlayerView extends Circle {
+    private final Player player;
+    
+    /**
+     * Creates the circle for a player at its current position.
+     */
+    public PlayerView(Player player) {
+        super(player.getCenterX(), player.getCenterY(), player.getRadius(), Color.RED);
+        this.player = player;
+    }
+    
+    /**
+     * Moves the circle to the player's position, blended between the last two simulation steps.
+     * 
+     * @param alpha How far (0 to 1) the render time is between the previous and current step
+     */
+    public void sync(double alpha) {
+        setCenterX(player.getRenderX(alpha));
+        setCenterY(player.getRenderY(alpha));
+    }
+}
@@ -0,0 +1,394 @@
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * The parsed layout of one room: its tile grid and where every entity starts.
+ * Templates never change once made, GameMap builds the live room (tiles, coins, traps...) from one.
+ * They are parsed from the level text files and stored compiled in the level pack (see LevelCompiler).
+ */
+public final class RoomTemplate {
+    // Kinds of tile in the grid
+    public static final byte NO_TILE = 0;
+    public static final byte TERRAIN = 1;
+    public static final byte BACKGROUND = 2;
+    public static final byte EXIT = 3;
+    
+    // Kinds of trap
+    public static final byte SPIKE = 0;
+    public static final byte MOVING_SPIKE = 1;
+    
+    private final String name;
+    private final int width;
+    private final int height;
+    private final byte[] tiles;             // tile kind of each cell (index x + y * width)
+    
+    // Starting cells (index x + y * width, -1 when the room has none), in the order they appear in the file
+    private final int playerCell;
+    private final int keyCell;
+    private final int exitCell;
+    private final int[] coinCells;
+    private final int[] trapCells;
+    private final byte[] trapKinds;
+    private final int[] turnCells;
+    
+    // Patrol ends of each trap (center x-coordinates, infinite for traps that don't move or have no turn point)
+    private final double[] patrolLeftX;
+    private final double[] patrolRightX;
+    
+    private RoomTemplate(String name, int width, int height, byte[] tiles, int playerCell, int keyCell, int exitCell,
+                         int[] coinCells, int[] trapCells, byte[] trapKinds, int[] turnCells,
+                         double[] patrolLeftX, double[] patrolRightX) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.playerCell = playerCell;
+        this.keyCell = keyCell;
+        this.exitCell = exitCell;
+        this.coinCells = coinCells;
+        this.trapCells = trapCells;
+        this.trapKinds = trapKinds;
+        this.turnCells = turnCells;
+        this.patrolLeftX = patrolLeftX;
+        this.patrolRightX = patrolRightX;
+    }
+    
+    /**
+     * Reads a room from its level text file.
+     * A missing file gives an empty (0 by 0) room.
+     *
+     * @param levelFilePath Path to the level definition file
+     * @return The parsed room
+     */
+    public static RoomTemplate parse(String levelFilePath) {
+        File levelFile = new File(levelFilePath);
+        String name = levelFile.getName().replaceFirst("\\.txt$", "");
+        List<String> lines = new ArrayList<>();
+        
+        // First read all lines to determine map dimensions
+        try (Scanner scanner = new Scanner(levelFile)) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            System.err.println("Error: Level file not found: " + levelFilePath);
+            e.printStackTrace();
+        }
+        
+        int height = lines.size();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, line.length());
+        }
+        
+        byte[] tiles = new byte[width * height];
+        int playerCell = -1;
+        int keyCell = -1;
+        int exitCell = -1;
+        List<Integer> coinCells = new ArrayList<>();
+        List<Integer> trapCells = new ArrayList<>();
+        List<Byte> trapKinds = new ArrayList<>();
+        List<Integer> turnCells = new ArrayList<>();
+        
+        for (int y = 0; y < height; y++) {
+            String line = lines.get(y);
+            for (int x = 0; x < line.length(); x++) {
+                int cell = x + y * width;
+                // Everything except terrain and the exit has a background tile behind it
+                tiles[cell] = BACKGROUND;
+                
+                switch (line.charAt(x)) {
+                    case 'X': // Terrain
+                        tiles[cell] = TERRAIN;
+                        break;
+                    case 'A': // Exit
+                        tiles[cell] = EXIT;
+                        exitCell = cell;
+                        break;
+                    case 'P': // Player
+                        playerCell = cell;
+                        break;
+                    case 'C': // Coin
+                        coinCells.add(cell);
+                        break;
+                    case 'K': // Key
+                        keyCell = cell;
+                        break;
+                    case 'S': // Spike trap
+                        trapCells.add(cell);
+                        trapKinds.add(SPIKE);
+                        break;
+                    case 'M': // Moving spike trap
+                        trapCells.add(cell);
+                        trapKinds.add(MOVING_SPIKE);
+                        break;
+                    case 'T': // Points where moving traps will turn
+                        turnCells.add(cell);
+                        break;
+                    default: // Empty space ('E' included)
+                        break;
+                }
+            }
+        }
+        
+        byte[] kinds = new byte[trapKinds.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = trapKinds.get(i);
+        }
+        int[] traps = toArray(trapCells);
+        int[] turns = toArray(turnCells);
+        
+        double[] patrolLeftX = new double[traps.length];
+        double[] patrolRightX = new double[traps.length];
+        resolvePatrols(width, traps, kinds, turns, patrolLeftX, patrolRightX);
+        
+        return new RoomTemplate(name, width, height, tiles, playerCell, keyCell, exitCell,
+            toArray(coinCells), traps, kinds, turns, patrolLeftX, patrolRightX);
+    }
+    
+    /**
+     * Gives every moving spike the turn points from the nearest 'T' markers either side of it on its row.
+     * Done once here so the game loop only has to compare two numbers to know when a spike turns.
+     */
+    private static void resolvePatrols(int width, int[] trapCells, byte[] trapKinds, int[] turnCells,
+                                       double[] patrolLeftX, double[] patrolRightX) {
+        int tileSize = GameMap.TILE_SIZE;
+        for (int i = 0; i < trapCells.length; i++) {
+            patrolLeftX[i] = Double.NEGATIVE_INFINITY;
+            patrolRightX[i] = Double.POSITIVE_INFINITY;
+            if (trapKinds[i] != MOVING_SPIKE) {
+                continue;
+            }
+            
+            int trapCol = trapCells[i] % width;
+            int trapRow = trapCells[i] / width;
+            for (int turnCell : turnCells) {
+                if (turnCell / width != trapRow) {
+                    continue;   // not on this spike's row
+                }
+                
+                // The spike (a tile wide) turns as soon as it touches the turn point
+                int turnCol = turnCell % width;
+                if (turnCol < trapCol) {
+                    patrolLeftX[i] = Math.max(patrolLeftX[i], (turnCol + 1) * tileSize + tileSize/2);
+                }
+                else {
+                    patrolRightX[i] = Math.min(patrolRightX[i], turnCol * tileSize - tileSize/2);
+                }
+            }
+        }
+    }
+    
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+    
+    /**
+     * Writes the room in the compiled (binary) format read back by read().
+     *
+     * @param out Where to write the room
+     */
+    public void write(DataOutputStream out) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(nameBytes.length);
+        out.write(nameBytes);
+        
+        // Metadata and tile grid
+        out.writeInt(width);
+        out.writeInt(height);
+        out.write(tiles);
+        
+        // Entities
+        out.writeInt(playerCell);
+        out.writeInt(keyCell);
+        out.writeInt(exitCell);
+        writeCells(out, coinCells);
+        writeCells(out, turnCells);
+        
+        // Traps with their patrol segments
+        out.writeInt(trapCells.length);
+        for (int i = 0; i < trapCells.length; i++) {
+            out.writeInt(trapCells[i]);
+            out.writeByte(trapKinds[i]);
+            out.writeDouble(patrolLeftX[i]);
+            out.writeDouble(patrolRightX[i]);
+        }
+    }
+    
+    private static void writeCells(DataOutputStream out, int[] cells) throws IOException {
+        out.writeInt(cells.length);
+        for (int cell : cells) {
+            out.writeInt(cell);
+        }
+    }
+    
+    /**
+     * Reads a room written by write().
+     * Every length is checked against the data left, so a damaged pack fails here rather than later on.
+     *
+     * @param buffer The room's bytes (read from its current position)
+     * @return The room
+     * @throws IOException If the data is not a valid room
+     */
+    public static RoomTemplate read(ByteBuffer buffer) throws IOException {
+        try {
+            byte[] nameBytes = new byte[checkedLength(buffer, buffer.getShort(), 1)];
+            buffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+            
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width < 0 || height < 0) {
+                throw new IOException("Invalid room size in " + name);
+            }
+            byte[] tiles = new byte[checkedLength(buffer, (long) width * height, 1)];
+            buffer.get(tiles);
+            
+            int playerCell = buffer.getInt();
+            int keyCell = buffer.getInt();
+            int exitCell = buffer.getInt();
+            int[] coinCells = readCells(buffer);
+            int[] turnCells = readCells(buffer);
+            
+            int trapCount = checkedLength(buffer, buffer.getInt(), 21);
+            int[] trapCells = new int[trapCount];
+            byte[] trapKinds = new byte[trapCount];
+            double[] patrolLeftX = new double[trapCount];
+            double[] patrolRightX = new double[trapCount];
+            for (int i = 0; i < trapCount; i++) {
+                trapCells[i] = buffer.getInt();
+                trapKinds[i] = buffer.get();
+                patrolLeftX[i] = buffer.getDouble();
+                patrolRightX[i] = buffer.getDouble();
+            }
+            
+            return new RoomTemplate(name, width, height, tiles, playerCell, keyCell, exitCell,
+                coinCells, trapCells, trapKinds, turnCells, patrolLeftX, patrolRightX);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt room data", e);
+        }
+    }
+    
+    private static int[] readCells(ByteBuffer buffer) throws IOException {
+        int[] cells = new int[checkedLength(buffer, buffer.getInt(), 4)];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = buffer.getInt();
+        }
+        return cells;
+    }
+    
+    /**
+     * Checks that a count of entries (each entrySize bytes) fits in what is left of the buffer.
+     */
+    private static int checkedLength(ByteBuffer buffer, long count, int entrySize) throws IOException {
+        if (count < 0 || count * entrySize > buffer.remaining()) {
+            throw new IOException("Room data is truncated");
+        }
+        return (int) count;
+    }
+    
+    /**
+     * Name of the room (its level file name without the extension).
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Width of the room in tiles.
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Height of the room in tiles.
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Kind of tile at a cell (NO_TILE, TERRAIN, BACKGROUND or EXIT).
+     */
+    public byte getTile(int x, int y) {
+        return tiles[x + y * width];
+    }
+    
+    /**
+     * Cell the player starts in, or -1.
+     */
+    public int getPlayerCell() {
+        return playerCell;
+    }
+    
+    /**
+     * Cell of the key, or -1.
+     */
+    public int getKeyCell() {
+        return keyCell;
+    }
+    
+    /**
+     * Cell of the exit, or -1.
+     */
+    public int getExitCell() {
+        return exitCell;
+    }
+    
+    /**
+     * Cells of the coins (shared array, not to be modified).
+     */
+    public int[] getCoinCells() {
+        return coinCells;
+    }
+    
+    /**
+     * Cells of the traps (shared array, not to be modified).
+     */
+    public int[] getTrapCells() {
+        return trapCells;
+    }
+    
+    /**
+     * Kind of each trap (SPIKE or MOVING_SPIKE).
+     */
+    public byte getTrapKind(int trapNumber) {
+        return trapKinds[trapNumber];
+    }
+    
+    /**
+     * Center x-coordinate at which a moving trap turns back when moving left.
+     */
+    public double getPatrolLeftX(int trapNumber) {
+        return patrolLeftX[trapNumber];
+    }
+    
+    /**
+     * Center x-coordinate at which a moving trap turns back when moving right.
+     */
+    public double getPatrolRightX(int trapNumber) {
+        return patrolRightX[trapNumber];
+    }
+    
+    /**
+     * Cells of the turn points (shared array, not to be modified).
+     */
+    public int[] getTurnCells() {
+        return turnCells;
+    }
+}
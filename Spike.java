@@ -1,5 +1,3 @@
-import javafx.scene.paint.Color;
-
 /**
  * A stationary trap that applies damage on the player on contact.
  */
@@ -10,7 +8,7 @@ public class Spike extends Trap
      */
     public Spike(double x, double y, double size)
     {
-        super(x, y, size, 15, Color.BROWN);
+        super(x, y, size, 15);
     }
 
 }
\ No newline at end of file
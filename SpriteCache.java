@@ -0,0 +1,107 @@
+import javafx.scene.image.Image;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache of decoded sprite images, keyed by their path.
+ * Every sprite file is decoded once and the same Image is shared by all tiles using it.
+ * Sprites that fail to load are never cached, so they are tried again the next time they are asked for.
+ */
+public final class SpriteCache {
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<>();
+    
+    // Counters for monitoring how well the cache is doing
+    private static final AtomicLong lookups = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong memoryBytes = new AtomicLong();
+    
+    private SpriteCache() {
+    }
+    
+    /**
+     * Returns the decoded image for a path, decoding it only on the first request.
+     *
+     * @param path Path to the image file
+     * @return The shared decoded image
+     * @throws IllegalArgumentException If the image could not be loaded
+     */
+    public static Image get(String path) {
+        lookups.incrementAndGet();
+        Image image = images.get(path);
+        if (image == null) {
+            image = images.computeIfAbsent(path, SpriteCache::decode);
+        }
+        return image;
+    }
+    
+    /**
+     * Decodes a sprite that is not yet cached (called once per path, unless it fails to load).
+     * Throwing leaves nothing in the cache.
+     */
+    private static Image decode(String path) {
+        misses.incrementAndGet();
+        Image image = new Image(path);
+        if (image.isError()) {
+            throw new IllegalArgumentException("Could not load image: " + path, image.getException());
+        }
+        // Decoded images are stored as 32-bit ARGB pixels
+        memoryBytes.addAndGet((long) image.getWidth() * (long) image.getHeight() * 4);
+        return image;
+    }
+    
+    /**
+     * Decodes the given sprites on a background thread so they are ready before the first level is built.
+     *
+     * @param paths Paths of the sprites to decode
+     * @return A future that completes once every sprite has been decoded
+     */
+    public static CompletableFuture<Void> warmUp(String... paths) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        
+        Thread loader = new Thread(() -> {
+            for (String path : paths) {
+                try {
+                    get(path);
+                } catch (Exception e) {
+                    // Not cached, so it is tried again (and reported again) when first drawn
+                    System.err.println("Failed to load image: " + path);
+                }
+            }
+            future.complete(null);
+        }, "sprite-warmup");
+        loader.setDaemon(true);     // never keep the application alive
+        loader.start();
+        
+        return future;
+    }
+    
+    /**
+     * Number of requests answered from the cache.
+     */
+    public static long getHits() {
+        return lookups.get() - misses.get();
+    }
+    
+    /**
+     * Number of requests that had to decode the image.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Number of distinct sprites currently cached.
+     */
+    public static int size() {
+        return images.size();
+    }
+    
+    /**
+     * Estimated memory (in bytes) used by the decoded pixels of all cached sprites.
+     */
+    public static long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+}
@@ -1,16 +1,29 @@
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Tile class represents a single tile in the game world.
  * Able to represent terrain, background or special objects (i.e keys, coins and spikes).
+ * Only holds the tile's state, the sprite is drawn by MapView.
+ * 
+ * Most tiles never change. Mutable ones (currently the exit, which opens) tell their listeners
+ * whenever their state actually changes, so views only redraw them then.
  */
-public class Tile extends Rectangle {
+public class Tile {
+    // Sprites used by map tiles (preloaded by the sprite cache at start up)
+    public static final String[] SPRITE_PATHS = {
+        "Sprites/stone_brick12.png",
+        "Sprites/brick_dark2.png",
+        "Sprites/dngn_closed_door.png",
+        "Sprites/dngn_exit_abyss.png"
+    };
+    
     private final String TYPE;
     private boolean isPassable;
-    private ImageView imageView;
+    private String spritePath;
+    private final AABB bounds;      // tiles never move, so the collision box is fixed
+    private boolean isOpen;
+    private List<TileListener> listeners;   // created when the first listener is added
     
     /**
      * Creates a new Tile with the specified position, size, and type.
@@ -22,97 +35,144 @@ public class Tile extends Rectangle {
      * @param type The type of tile (e.g., "TERRAIN", "BACKGROUND")
      */
     public Tile(double x, double y, double width, double height, String type) {
-        super(width, height);
         this.TYPE = type;
-        
-        // Set position
-        setTranslateX(x);
-        setTranslateY(y);
+        bounds = new AABB(x, y, width, height);
         
         // Configure tile properties based on type
         configureTileProperties();
     }
     
     /**
-     * Configures the visual appearance and game properties of the tile based on its type.
+     * Configures the sprite and game properties of the tile based on its type.
      */
     private void configureTileProperties() {
         switch (TYPE) {
             case "TERRAIN":
-                loadSprite("Sprites/stone_brick12.png");
+                spritePath = "Sprites/stone_brick12.png";
                 isPassable = false;
                 break;
-                
+            
             case "BACKGROUND":
-                loadSprite("Sprites/brick_dark2.png");
+                spritePath = "Sprites/brick_dark2.png";
                 isPassable = true;
                 break;
-                
+            
             case "KEY":
-                loadSprite("Sprites/key.png");
+                spritePath = "Sprites/key.png";
                 isPassable = true;
                 break;
-                
+            
             case "EXIT":
-                loadSprite("Sprites/dngn_closed_door.png");
+                spritePath = "Sprites/dngn_closed_door.png";
                 isPassable = true;
                 break;
             
             case "TURN":
-                loadSprite("Sprites/brick_dark2.png");
+                spritePath = "Sprites/brick_dark2.png";
                 isPassable = true;
                 break;
-                
+            
             default:
-                setFill(Color.WHITE);
+                spritePath = null;  // drawn as a plain white tile
                 isPassable = true;
                 break;
         }
     }
     
     /**
-     * Updates the sprite for the exit tile.
+     * Puts the tile back how it was created (i.e closes the exit again).
      */
-    public void updateSprite() {
-        if (TYPE.equals("EXIT")) {
-            loadSprite("Sprites/dngn_exit_abyss.png");
+    public void reset() {
+        String oldSprite = spritePath;
+        boolean wasPassable = isPassable;
+        isOpen = false;
+        configureTileProperties();
+        
+        if (!isSameSprite(oldSprite) || wasPassable != isPassable) {
+            fireChanged();
         }
     }
     
     /**
-     * Loads a sprite image for this tile.
+     * Opens the exit tile. Does nothing (and tells no one) if it is already open or isn't an exit.
+     */
+    public void open() {
+        if (TYPE.equals("EXIT") && !isOpen) {
+            isOpen = true;
+            setState("Sprites/dngn_exit_abyss.png", isPassable);
+        }
+    }
+    
+    /**
+     * Changes the tile's sprite and passability, telling the listeners if either is different.
      * 
-     * @param imagePath Path to the image file
+     * @param spritePath The sprite to show, or null for a plain tile
+     * @param passable Whether the player can move through the tile
      */
-    private void loadSprite(String imagePath) {
-        try {
-            // Load image
-            Image image = new Image(imagePath);
-            
-            // Create ImageView with same size as the tile
-            imageView = new ImageView(image);
-            imageView.setFitWidth(getWidth());
-            imageView.setFitHeight(getHeight());
-            
-            // rectangle transparent since we're showing an image
-            setFill(Color.TRANSPARENT);
-            
-        } catch (Exception e) {
-            // If image loading fails, use a default color
-            System.err.println("Failed to load image: " + imagePath);
-            setFill(Color.DARKGRAY);
-            setStroke(Color.BLACK);
-            setStrokeWidth(1);
+    public void setState(String spritePath, boolean passable) {
+        if (isSameSprite(spritePath) && passable == isPassable) {
+            return;
+        }
+        this.spritePath = spritePath;
+        this.isPassable = passable;
+        fireChanged();
+    }
+    
+    private boolean isSameSprite(String path) {
+        return path == null ? spritePath == null : path.equals(spritePath);
+    }
+    
+    private void fireChanged() {
+        if (listeners == null) {
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).tileChanged(this);
+        }
+    }
+    
+    /**
+     * Adds a listener told whenever the tile's state changes.
+     */
+    public void addListener(TileListener listener) {
+        if (listeners == null) {
+            listeners = new ArrayList<>();
+        }
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener added with addListener.
+     */
+    public void removeListener(TileListener listener) {
+        if (listeners != null) {
+            listeners.remove(listener);
         }
     }
     
     /**
-     * Gets the ImageView for this tile if it has a sprite.
+     * Whether the tile's state can change during a game (so it can't be baked into a static background).
      * 
-     * @return The ImageView or null if this tile doesn't use a sprite
+     * @return true for exits, false for plain terrain and background
      */
-    public ImageView getImageView() {
-        return imageView;
+    public boolean isMutable() {
+        return TYPE.equals("EXIT");
+    }
+    
+    /**
+     * Whether the exit has been opened.
+     */
+    public boolean isOpen() {
+        return isOpen;
+    }
+    
+    /**
+     * Gets the path of the sprite currently shown for this tile.
+     * 
+     * @return The sprite path or null if this tile doesn't use a sprite
+     */
+    public String getSpritePath() {
+        return spritePath;
     }
     
     /**
@@ -121,7 +181,7 @@ public class Tile extends Rectangle {
      * @return true if this tile has a sprite image, false otherwise
      */
     public boolean hasSprite() {
-        return imageView != null;
+        return spritePath != null;
     }
     
     /**
@@ -133,6 +193,15 @@ public class Tile extends Rectangle {
         return isPassable;
     }
     
+    /**
+     * Gets the tile's collision box in world coordinates.
+     * 
+     * @return The cached bounding box of the tile
+     */
+    public AABB getBounds() {
+        return bounds;
+    }
+    
     /**
      * Gets the tile's type (i.e Terrain, Background ...).
      * 
@@ -141,4 +210,4 @@ public class Tile extends Rectangle {
     public String getType() {
         return TYPE;
     }
-}
\ No newline at end of file
+}
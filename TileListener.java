@@ -0,0 +1,12 @@
+/**
+ * Gets told when a tile changes state (i.e an exit opening), so whatever draws the tile
+ * only has to update it then instead of checking it every frame.
+ */
+public interface TileListener {
+    /**
+     * Called once each time the tile's sprite or passability changes.
+     * 
+     * @param tile The tile that changed
+     */
+    void tileChanged(Tile tile);
+}
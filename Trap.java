@@ -1,53 +1,89 @@
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Polygon;
-
 /**
  * Abstract class for all the traps that can damage the player.
+ * Holds only the simulation state, the triangle is drawn by TrapView.
  */
-public abstract class Trap extends Polygon {
+public abstract class Trap {
     protected final int damage;
     protected final double damageCooldown = 1.0; // 1 second cooldown
     protected double lastDamageTime = 0.0;
     
     // Trap properties
     protected double centerX;
+    protected final double startX;      // where the trap was placed in the room
+    protected double previousX;     // position at the start of the current step
     protected final double centerY;
     protected final double size;
+    protected final AABB bounds;
+    
+    // Triangle edges relative to the center, precomputed for the collision test
+    private final double[] vertexX = new double[3];     // start point of each edge
+    private final double[] vertexY = new double[3];
+    private final double[] edgeX = new double[3];       // unit direction along each edge
+    private final double[] edgeY = new double[3];
+    private final double[] normalX = new double[3];     // unit normal pointing out of the triangle
+    private final double[] normalY = new double[3];
+    private final double[] edgeLength = new double[3];
     
     /**
      * Create a triangular trap with specified properties.
      */
-    public Trap(double x, double y, double size, int damage, Color color) {        
+    public Trap(double x, double y, double size, int damage) {        
         // Triangle that faces up by default
         centerX = x;
+        startX = x;
+        previousX = x;
         centerY = y;
         this.size = size;
         this.damage = damage;
+        bounds = new AABB(0, 0, 0, 0);
         
-        this.drawTriangle();
+        updateBounds();
+        precomputeEdges();
+    }
+    
+    /**
+     * Works out the direction, length and outward normal of each edge of the triangle.
+     * The triangle only ever moves (never turns or resizes) so this only needs doing once.
+     */
+    private void precomputeEdges() {
+        // Same corners as the drawn triangle, going round: bottom left, bottom right, top point
+        double[] cornerX = { -size/2, size/2, 0 };
+        double[] cornerY = { size/2, size/2, -size/2 };
         
-        // Coloring the trap in
-        setFill(color);
-        setStroke(Color.BLACK);
-        setStrokeWidth(2);
+        for (int i = 0; i < 3; i++) {
+            int next = (i + 1) % 3;
+            double dx = cornerX[next] - cornerX[i];
+            double dy = cornerY[next] - cornerY[i];
+            double length = Math.sqrt(dx * dx + dy * dy);
+            
+            vertexX[i] = cornerX[i];
+            vertexY[i] = cornerY[i];
+            edgeX[i] = dx / length;
+            edgeY[i] = dy / length;
+            normalX[i] = -edgeY[i];
+            normalY[i] = edgeX[i];
+            edgeLength[i] = length;
+        }
+    }
+    
+    /**
+     * Fits the collision box around the triangle's current position.
+     */
+    protected void updateBounds(){
+        bounds.set(centerX - size/2, centerY - size/2, size, size);
     }
     
     /**
-     * Update the triangle vertices based on current position.
+     * Returns the trap's bounding box.
      */
-    protected void drawTriangle(){
-        this.getPoints().clear();
-        this.getPoints().addAll( // From center
-            centerX-(size/2), centerY+(size/2),     // Bottom left
-            centerX+(size/2), centerY+(size/2),     // Bottom right
-            centerX         , centerY-(size/2)      // Top point            
-        );
+    public AABB getBounds(){
+        return bounds;
     }
     
     /**
      * Applies damage to player when collision occurs and cooldown has passed.
      */
-    private void checkInteraction(Player player){
+    public void checkInteraction(Player player){
         if (checkCollision(player) && lastDamageTime >= damageCooldown){
             player.applyDamage(damage);
             lastDamageTime = 0;
@@ -55,35 +91,89 @@ public abstract class Trap extends Polygon {
     }
     
     /**
-     * Uses trigonometry to calculated roughly if the player is colliding with the trap.
+     * Exact test of whether the player's circle touches the triangle.
      * 
-     * This is because collsion with bounds uses a rectangle hence, doesn't work well with triangles.
+     * Only uses the precomputed edges: the circle is clear of the triangle if it is further than its
+     * radius outside any edge, touches it if it is inside every edge or within its radius of an edge segment,
+     * and otherwise can only be touching one of the corners.
      */
     private boolean checkCollision(Player player){
-        if (player == null || (player.getCenterY() >= (centerY + size/2))){
+        if (player == null || !bounds.intersects(player.getBounds())){
             return false;
         }
-        // Measurements from triangle center base to circle's center
-        double adjacent = Math.abs(player.getCenterX() - centerX);
-        double opposite = Math.abs((centerY + size/2) - player.getCenterY());
         
-        double theta = Math.atan(opposite / adjacent);
-        double dist_baseToCircleEdge = Math.hypot(opposite, adjacent) - player.getRadius(); 
-
-        // Angles in triangle
-        double alpha = Math.toRadians(63.44);       // Roughly the base angle of side of any trap 
-        double beta = Math.PI - (alpha + theta);    // Angles in a triangle add to 180 (pi)
+        // Player's center relative to the trap's center
+        double px = player.getCenterX() - centerX;
+        double py = player.getCenterY() - centerY;
+        double radius = player.getRadius();
+        boolean inside = true;
         
-        double dist_baseToTriangleEdge = (size/2) * (Math.sin(alpha) / Math.sin(beta));
+        for (int i = 0; i < 3; i++) {
+            double relX = px - vertexX[i];
+            double relY = py - vertexY[i];
+            double distance = relX * normalX[i] + relY * normalY[i];   // signed distance from the edge line
+            
+            if (distance > radius) {
+                return false;
+            }
+            if (distance > 0) {
+                inside = false;
+                
+                // Closest point is on this edge if the center projects onto the segment
+                double along = relX * edgeX[i] + relY * edgeY[i];
+                if (along >= 0 && along <= edgeLength[i]) {
+                    return true;
+                }
+            }
+        }
+        if (inside) {
+            return true;
+        }
         
-        return dist_baseToCircleEdge <= dist_baseToTriangleEdge;
+        // Outside the triangle but not next to any edge, so only a corner can be close enough
+        for (int i = 0; i < 3; i++) {
+            double relX = px - vertexX[i];
+            double relY = py - vertexY[i];
+            if (relX * relX + relY * relY <= radius * radius) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
-     * Updates trap state and checks for player interaction.
+     * X position to draw the trap at, between the previous and current step.
      */
-    public void update(Player player, double deltaTime){
-        this.checkInteraction(player);
+    public double getRenderX(double alpha){
+        return previousX + (centerX - previousX) * alpha;
+    }
+    
+    public double getCenterX(){
+        return centerX;
+    }
+    
+    public double getCenterY(){
+        return centerY;
+    }
+    
+    public double getSize(){
+        return size;
+    }
+    
+    /**
+     * Advances the trap's timers (and movement) by a time step, without checking the player.
+     */
+    public void advance(double deltaTime){
         lastDamageTime += deltaTime;
     }
+    
+    /**
+     * Puts the trap back where it started with its cooldown cleared (used when restarting the game).
+     */
+    public void reset() {
+        centerX = startX;
+        previousX = startX;
+        lastDamageTime = 0.0;
+        updateBounds();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buckets a room's traps by the tile cells they cover, so only the traps near the player
+ * need the (more expensive) exact collision test.
+ * Moving traps are only re-bucketed when they cross into a different cell.
+ */
+public class TrapIndex {
+    private final List<Trap> traps;
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    
+    // Numbers of the traps covering each cell (index x + y * width), arrays created when first needed
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    
+    // Cell range each trap is currently bucketed under (same order as the trap list)
+    private final int[] firstCol;
+    private final int[] lastCol;
+    private final int[] firstRow;
+    private final int[] lastRow;
+    
+    // Query results and marks to skip traps already found, both reused between queries
+    private final List<Trap> nearby = new ArrayList<>();
+    private final int[] queryMark;
+    private int queryCount = 0;
+    
+    /**
+     * Creates an index over a room's traps.
+     *
+     * @param traps The traps of the room
+     * @param width Width of the room in cells
+     * @param height Height of the room in cells
+     * @param cellSize Size of a cell in pixels
+     */
+    public TrapIndex(List<Trap> traps, int width, int height, int cellSize) {
+        this.traps = traps;
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        
+        buckets = new int[width * height][];
+        bucketSizes = new int[width * height];
+        
+        firstCol = new int[traps.size()];
+        lastCol = new int[traps.size()];
+        firstRow = new int[traps.size()];
+        lastRow = new int[traps.size()];
+        queryMark = new int[traps.size()];
+        
+        for (int i = 0; i < traps.size(); i++) {
+            AABB bounds = traps.get(i).getBounds();
+            firstCol[i] = colOf(bounds.getMinX());
+            lastCol[i] = colOf(bounds.getMaxX());
+            firstRow[i] = rowOf(bounds.getMinY());
+            lastRow[i] = rowOf(bounds.getMaxY());
+            addToBuckets(i);
+        }
+    }
+    
+    /**
+     * Re-buckets a trap after it has moved, only if it now covers different cells.
+     *
+     * @param trapNumber Position of the trap in the room's trap list
+     */
+    public void moved(int trapNumber) {
+        AABB bounds = traps.get(trapNumber).getBounds();
+        int newFirstCol = colOf(bounds.getMinX());
+        int newLastCol = colOf(bounds.getMaxX());
+        int newFirstRow = rowOf(bounds.getMinY());
+        int newLastRow = rowOf(bounds.getMaxY());
+        
+        if (newFirstCol == firstCol[trapNumber] && newLastCol == lastCol[trapNumber]
+            && newFirstRow == firstRow[trapNumber] && newLastRow == lastRow[trapNumber]) {
+            return;
+        }
+        
+        removeFromBuckets(trapNumber);
+        firstCol[trapNumber] = newFirstCol;
+        lastCol[trapNumber] = newLastCol;
+        firstRow[trapNumber] = newFirstRow;
+        lastRow[trapNumber] = newLastRow;
+        addToBuckets(trapNumber);
+    }
+    
+    /**
+     * Re-buckets every trap (after the traps have been moved back to their starting positions).
+     */
+    public void reset() {
+        for (int i = 0; i < traps.size(); i++) {
+            moved(i);
+        }
+    }
+    
+    /**
+     * Finds the traps sharing a cell with a box (each trap is returned once).
+     * The returned list is reused by the next query.
+     *
+     * @param box The area to search, i.e the player's bounds
+     * @return The traps near the box
+     */
+    public List<Trap> query(AABB box) {
+        nearby.clear();
+        queryCount++;
+        
+        int fromCol = colOf(box.getMinX());
+        int toCol = colOf(box.getMaxX());
+        int fromRow = rowOf(box.getMinY());
+        int toRow = rowOf(box.getMaxY());
+        
+        for (int y = fromRow; y <= toRow; y++) {
+            for (int x = fromCol; x <= toCol; x++) {
+                int cell = x + y * width;
+                for (int i = 0; i < bucketSizes[cell]; i++) {
+                    int trapNumber = buckets[cell][i];
+                    if (queryMark[trapNumber] != queryCount) {
+                        queryMark[trapNumber] = queryCount;
+                        nearby.add(traps.get(trapNumber));
+                    }
+                }
+            }
+        }
+        return nearby;
+    }
+    
+    private void addToBuckets(int trapNumber) {
+        for (int y = firstRow[trapNumber]; y <= lastRow[trapNumber]; y++) {
+            for (int x = firstCol[trapNumber]; x <= lastCol[trapNumber]; x++) {
+                int cell = x + y * width;
+                if (buckets[cell] == null) {
+                    buckets[cell] = new int[2];
+                }
+                else if (bucketSizes[cell] == buckets[cell].length) {
+                    buckets[cell] = Arrays.copyOf(buckets[cell], bucketSizes[cell] * 2);
+                }
+                buckets[cell][bucketSizes[cell]++] = trapNumber;
+            }
+        }
+    }
+    
+    private void removeFromBuckets(int trapNumber) {
+        for (int y = firstRow[trapNumber]; y <= lastRow[trapNumber]; y++) {
+            for (int x = firstCol[trapNumber]; x <= lastCol[trapNumber]; x++) {
+                int cell = x + y * width;
+                int[] bucket = buckets[cell];
+                for (int i = 0; i < bucketSizes[cell]; i++) {
+                    if (bucket[i] == trapNumber) {
+                        // Order doesn't matter, so fill the gap with the last entry
+                        bucket[i] = bucket[--bucketSizes[cell]];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Column containing an x-coordinate, clamped to the room.
+     */
+    private int colOf(double x) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(x / cellSize)));
+    }
+    
+    /**
+     * Row containing a y-coordinate, clamped to the room.
+     */
+    private int rowOf(double y) {
+        return Math.max(0, Math.min(height - 1, (int) Math.floor(y / cellSize)));
+    }
+}
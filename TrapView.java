@@ -0,0 +1,49 @@
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Polygon;
+
+/**
+ * Draws a trap as a triangle, following the Trap model.
+ */
+public class TrapView extends Polygon {
+    private final Trap trap;
+    private final double startX;    // where the triangle's points were drawn
+    
+    /**
+     * Creates the triangle for a trap at its current position.
+     */
+    public TrapView(Trap trap) {
+        this.trap = trap;
+        this.startX = trap.getCenterX();
+        
+        double centerX = trap.getCenterX();
+        double centerY = trap.getCenterY();
+        double size = trap.getSize();
+        getPoints().addAll( // From center
+            centerX-(size/2), centerY+(size/2),     // Bottom left
+            centerX+(size/2), centerY+(size/2),     // Bottom right
+            centerX         , centerY-(size/2)      // Top point            
+        );
+        
+        // Coloring the trap in
+        setFill(trap instanceof MovingSpike ? Color.SILVER : Color.BROWN);
+        setStroke(Color.BLACK);
+        setStrokeWidth(2);
+    }
+    
+    /**
+     * Returns the trap drawn by this view.
+     */
+    public Trap getTrap() {
+        return trap;
+    }
+    
+    /**
+     * Moves the triangle to the trap's position, blended between the last two simulation steps.
+     * The existing triangle is shifted rather than having its points rebuilt (avoids allocating every frame).
+     * 
+     * @param alpha How far (0 to 1) the render time is between the previous and current step
+     */
+    public void sync(double alpha) {
+        setTranslateX(trap.getRenderX(alpha) - startX);
+    }
+}
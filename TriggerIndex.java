@@ -0,0 +1,223 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buckets a room's pickups (coins and the key) and the exit by the tile cells they cover.
+ * The nearby pickups are only looked up again when the player moves into a different set of cells,
+ * so the exact pickup tests only ever run on the few items next to the player.
+ * Collected items are removed from the index.
+ */
+public class TriggerIndex {
+    private final List<Coin> coins;
+    private final Key key;
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    
+    // Numbers of the coins covering each cell (index x + y * width), arrays created when first needed
+    private final int[][] buckets;
+    private final int[] bucketSizes;
+    
+    // Cell ranges of the key and exit (the first column is -1 when there is none)
+    private final int[] keyCells;
+    private final int[] exitCells;
+    private boolean keyIndexed;
+    
+    // Cell range the player covered at the last query, and what was found there
+    private int fromCol = -1;
+    private int toCol = -1;
+    private int fromRow = -1;
+    private int toRow = -1;
+    private final List<Coin> nearbyCoins = new ArrayList<>();
+    private boolean nearKey;
+    private boolean nearExit;
+    
+    // Marks to skip coins already found, reused between lookups
+    private final int[] queryMark;
+    private int queryCount = 0;
+    
+    /**
+     * Creates an index over a room's pickups and exit.
+     *
+     * @param coins The coins of the room
+     * @param key The key of the room, or null
+     * @param exit The exit tile of the room, or null
+     * @param width Width of the room in cells
+     * @param height Height of the room in cells
+     * @param cellSize Size of a cell in pixels
+     */
+    public TriggerIndex(List<Coin> coins, Key key, Tile exit, int width, int height, int cellSize) {
+        this.coins = coins;
+        this.key = key;
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        
+        buckets = new int[width * height][];
+        bucketSizes = new int[width * height];
+        queryMark = new int[coins.size()];
+        keyCells = cellsOf(key == null ? null : key.getBounds());
+        exitCells = cellsOf(exit == null ? null : exit.getBounds());
+        
+        reset();
+    }
+    
+    /**
+     * Puts every coin and the key (back) into the index, i.e after they are made collectable again.
+     */
+    public void reset() {
+        Arrays.fill(bucketSizes, 0);
+        for (int i = 0; i < coins.size(); i++) {
+            AABB bounds = coins.get(i).getBounds();
+            for (int y = rowOf(bounds.getMinY()); y <= rowOf(bounds.getMaxY()); y++) {
+                for (int x = colOf(bounds.getMinX()); x <= colOf(bounds.getMaxX()); x++) {
+                    addToBucket(x + y * width, i);
+                }
+            }
+        }
+        keyIndexed = key != null;
+        
+        // Forces the next update to look the nearby pickups up again
+        fromCol = -1;
+        nearbyCoins.clear();
+        nearKey = false;
+        nearExit = false;
+    }
+    
+    /**
+     * Brings the nearby pickups up to date with the player's position.
+     * Nothing is looked up unless the player now covers different cells.
+     *
+     * @param box The player's bounds
+     */
+    public void update(AABB box) {
+        int newFromCol = colOf(box.getMinX());
+        int newToCol = colOf(box.getMaxX());
+        int newFromRow = rowOf(box.getMinY());
+        int newToRow = rowOf(box.getMaxY());
+        
+        if (newFromCol == fromCol && newToCol == toCol && newFromRow == fromRow && newToRow == toRow) {
+            return;
+        }
+        fromCol = newFromCol;
+        toCol = newToCol;
+        fromRow = newFromRow;
+        toRow = newToRow;
+        
+        nearbyCoins.clear();
+        queryCount++;
+        for (int y = fromRow; y <= toRow; y++) {
+            for (int x = fromCol; x <= toCol; x++) {
+                int cell = x + y * width;
+                for (int i = 0; i < bucketSizes[cell]; i++) {
+                    int coinNumber = buckets[cell][i];
+                    if (queryMark[coinNumber] != queryCount) {
+                        queryMark[coinNumber] = queryCount;
+                        nearbyCoins.add(coins.get(coinNumber));
+                    }
+                }
+            }
+        }
+        
+        nearKey = keyIndexed && overlapsPlayer(keyCells);
+        nearExit = overlapsPlayer(exitCells);
+    }
+    
+    /**
+     * Removes a collected coin or key from the index.
+     */
+    public void remove(Item item) {
+        if (item == key) {
+            keyIndexed = false;
+            nearKey = false;
+            return;
+        }
+        
+        int coinNumber = coins.indexOf(item);
+        if (coinNumber < 0) {
+            return;
+        }
+        AABB bounds = item.getBounds();
+        for (int y = rowOf(bounds.getMinY()); y <= rowOf(bounds.getMaxY()); y++) {
+            for (int x = colOf(bounds.getMinX()); x <= colOf(bounds.getMaxX()); x++) {
+                removeFromBucket(x + y * width, coinNumber);
+            }
+        }
+        nearbyCoins.remove(item);
+    }
+    
+    /**
+     * The uncollected coins sharing a cell with the player at the last update.
+     * The list is reused, and shrinks as coins are removed.
+     */
+    public List<Coin> getNearbyCoins() {
+        return nearbyCoins;
+    }
+    
+    /**
+     * Whether the uncollected key shared a cell with the player at the last update.
+     */
+    public boolean isNearKey() {
+        return nearKey;
+    }
+    
+    /**
+     * Whether the exit shared a cell with the player at the last update.
+     */
+    public boolean isNearExit() {
+        return nearExit;
+    }
+    
+    private void addToBucket(int cell, int coinNumber) {
+        if (buckets[cell] == null) {
+            buckets[cell] = new int[2];
+        }
+        else if (bucketSizes[cell] == buckets[cell].length) {
+            buckets[cell] = Arrays.copyOf(buckets[cell], bucketSizes[cell] * 2);
+        }
+        buckets[cell][bucketSizes[cell]++] = coinNumber;
+    }
+    
+    private void removeFromBucket(int cell, int coinNumber) {
+        int[] bucket = buckets[cell];
+        for (int i = 0; i < bucketSizes[cell]; i++) {
+            if (bucket[i] == coinNumber) {
+                // Order doesn't matter, so fill the gap with the last entry
+                bucket[i] = bucket[--bucketSizes[cell]];
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Cell range {first column, last column, first row, last row} covered by a box.
+     */
+    private int[] cellsOf(AABB bounds) {
+        if (bounds == null) {
+            return new int[] {-1, -1, -1, -1};
+        }
+        return new int[] {colOf(bounds.getMinX()), colOf(bounds.getMaxX()), rowOf(bounds.getMinY()), rowOf(bounds.getMaxY())};
+    }
+    
+    /**
+     * Whether a cell range shares a cell with the player's current range.
+     */
+    private boolean overlapsPlayer(int[] cells) {
+        return cells[0] >= 0 && cells[0] <= toCol && fromCol <= cells[1] && cells[2] <= toRow && fromRow <= cells[3];
+    }
+    
+    /**
+     * Column containing an x-coordinate, clamped to the room.
+     */
+    private int colOf(double x) {
+        return Math.max(0, Math.min(width - 1, (int) Math.floor(x / cellSize)));
+    }
+    
+    /**
+     * Row containing a y-coordinate, clamped to the room.
+     */
+    private int rowOf(double y) {
+        return Math.max(0, Math.min(height - 1, (int) Math.floor(y / cellSize)));
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import superlario.bench.GameModel;
+
+/**
+ * A room set up for benchmarking the game model, either generated with a given size and number of
+ * entities or loaded from one of the game's level files. In the default package with the game's classes,
+ * and reached by the benchmarks through GameModel.
+ */
+public class BenchmarkRoom implements GameModel {
+    private static final double STEP = 1.0 / 60;
+
+    private final String levelFilePath;
+    private final boolean generated;
+    private final GameMap map;
+    private final Game game;
+    private final Player player;        // the game's player, for the whole step
+    private final Player testPlayer;    // a player of its own, for the single checks
+    private final Contact contact = new Contact();
+    private final AABB box = new AABB(0, 0, 0, 0);
+
+    /**
+     * Generates a room and writes it to a temporary level file.
+     * The room has a walled border, rows of platforms and the requested number of coins, spikes and
+     * moving spikes (with turn points) spread over it. The player starts on a ledge out of reach of the traps.
+     *
+     * @param width Width of the room in tiles
+     * @param height Height of the room in tiles
+     * @param entities Number of coins and traps to place in it
+     */
+    public BenchmarkRoom(int width, int height, int entities) {
+        this(writeRoom(width, height, entities), true);
+    }
+
+    /**
+     * Loads a room from one of the game's level files.
+     *
+     * @param levelFilePath Path to the level file (i.e Levels/1.txt)
+     */
+    public BenchmarkRoom(String levelFilePath) {
+        this(levelFilePath, false);
+    }
+
+    private BenchmarkRoom(String levelFilePath, boolean generated) {
+        this.levelFilePath = levelFilePath;
+        this.generated = generated;
+        map = new GameMap(levelFilePath);
+
+        GameMap[] levelMaps = new GameMap[Game.NO_OF_SCREENS];
+        Arrays.fill(levelMaps, map);
+        game = new Game(levelMaps);
+        player = game.getPlayer();
+        testPlayer = new Player(map.getPlayerX(), map.getPlayerY(), map.getPlayerRadius() * 0.9);
+    }
+
+    /**
+     * Once the player is dead Game.update skips checkTraps, so those steps would measure a cheaper path.
+     * The player starts out of reach of the traps, but is put back at the start if it ever dies anyway.
+     */
+    @Override
+    public double update() {
+        if (!player.checkAlive()) {
+            player.reset(map.getPlayerX(), map.getPlayerY());
+        }
+        game.update(STEP);
+        return player.getCenterY();
+    }
+
+    @Override
+    public double sweep() {
+        CollisionWorld world = map.getCollisionWorld();
+        box.setFromCircle(map.getPlayerX(), map.getPlayerY(), testPlayer.getRadius());
+        return world.sweepX(box, 3.5, contact) + world.sweepY(box, 10, contact);
+    }
+
+    /**
+     * Damage from a trap the player touches is applied (and the player revived if it dies), so this
+     * also measures the damage path when a moving spike passes the player.
+     */
+    @Override
+    public double checkTraps() {
+        List<Trap> traps = map.getTraps();
+        for (int i = 0; i < traps.size(); i++) {
+            traps.get(i).checkInteraction(testPlayer);
+        }
+        for (int i = 0; i < traps.size(); i++) {
+            traps.get(i).advance(STEP);
+        }
+        if (!testPlayer.checkAlive()) {
+            testPlayer.reset(map.getPlayerX(), map.getPlayerY());
+        }
+        return testPlayer.getHealth();
+    }
+
+    @Override
+    public double checkCoins() {
+        List<Coin> coins = map.getCoins();
+        int collectable = 0;
+        for (int i = 0; i < coins.size(); i++) {
+            if (coins.get(i).checkCollection(testPlayer)) {
+                collectable++;
+            }
+        }
+        return collectable;
+    }
+
+    @Override
+    public double checkTriggers() {
+        TriggerIndex triggerIndex = map.getTriggerIndex();
+        double x = testPlayer.getCenterX() + 3.5;
+        testPlayer.setCenterX(x > map.getWidth() * GameMap.TILE_SIZE ? 0 : x);
+        triggerIndex.update(testPlayer.getBounds());
+
+        List<Coin> nearbyCoins = triggerIndex.getNearbyCoins();
+        int collectable = 0;
+        for (int i = 0; i < nearbyCoins.size(); i++) {
+            if (nearbyCoins.get(i).checkCollection(testPlayer)) {
+                collectable++;
+            }
+        }
+        return collectable;
+    }
+
+    @Override
+    public double buildMap() {
+        return new GameMap(levelFilePath).getWidth();
+    }
+
+    @Override
+    public int getEntityCount() {
+        return map.getCoins().size() + map.getTraps().size();
+    }
+
+    @Override
+    public void close() {
+        if (generated) {
+            new File(levelFilePath).delete();
+        }
+    }
+
+    /**
+     * Writes a generated room to a temporary level file.
+     *
+     * @return The path of the file
+     */
+    private static String writeRoom(int width, int height, int entityCount) {
+        Random rand = new Random(42);   // same room on every run
+        char[][] grid = new char[height][width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                grid[y][x] = border ? 'X' : ' ';
+            }
+        }
+
+        // Platforms every fourth row, with random gaps
+        for (int y = 5; y < height - 1; y += 4) {
+            for (int x = 1; x < width - 1; x++) {
+                if (rand.nextInt(4) != 0) {
+                    grid[y][x] = 'X';
+                }
+            }
+        }
+
+        // Player on its own ledge in the top left corner
+        grid[1][1] = 'P';
+        grid[2][1] = 'X';
+        grid[2][2] = 'X';
+
+        // Free cells standing on terrain, below the player's ledge
+        List<int[]> spots = new ArrayList<>();
+        for (int y = 4; y < height - 1; y++) {
+            for (int x = 2; x < width - 2; x++) {
+                if (grid[y][x] == ' ' && grid[y + 1][x] == 'X') {
+                    spots.add(new int[] {x, y});
+                }
+            }
+        }
+        Collections.shuffle(spots, rand);
+
+        int placed = 0;
+        for (int[] spot : spots) {
+            if (placed == entityCount) {
+                break;
+            }
+            int x = spot[0];
+            int y = spot[1];
+            if (grid[y][x] != ' ') {
+                continue;
+            }
+
+            switch (placed % 3) {
+                case 0:
+                    grid[y][x] = 'C';
+                    break;
+                case 1:
+                    grid[y][x] = 'S';
+                    break;
+                default:
+                    grid[y][x] = 'M';
+                    if (grid[y][x - 1] == ' ') grid[y][x - 1] = 'T';
+                    if (grid[y][x + 1] == ' ') grid[y][x + 1] = 'T';
+                    break;
+            }
+            placed++;
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (char[] row : grid) {
+            lines.add(new String(row));
+        }
+
+        try {
+            File levelFile = File.createTempFile("benchmark-room", ".txt");
+            Files.write(levelFile.toPath(), lines);
+            return levelFile.getPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the benchmark room", e);
+        }
+    }
+}
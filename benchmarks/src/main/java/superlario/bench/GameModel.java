@@ -0,0 +1,79 @@
+package superlario.bench;
+
+/**
+ * The game model's hot paths, each run once per call.
+ *
+ * The game's classes live in the default package, which code in a package can't name, so the
+ * benchmarks go through this interface. It is implemented by BenchmarkRoom (in the default package),
+ * which is only looked up by name when a benchmark is set up, so each measured call is a plain interface call.
+ */
+public interface GameModel {
+
+    /**
+     * One whole simulation step (Game.update).
+     */
+    double update();
+
+    /**
+     * The terrain collision of a falling, moving player (CollisionWorld.sweepX and sweepY).
+     */
+    double sweep();
+
+    /**
+     * Every trap of the room against the player, then every trap advanced (as Game.checkTraps does).
+     */
+    double checkTraps();
+
+    /**
+     * Every coin of the room against the player (Coin.checkCollection).
+     */
+    double checkCoins();
+
+    /**
+     * The pickup check through the trigger index, with the player walking along the room.
+     */
+    double checkTriggers();
+
+    /**
+     * Builds the room again from its level file (GameMap construction).
+     */
+    double buildMap();
+
+    /**
+     * Number of coins and traps in the room.
+     */
+    int getEntityCount();
+
+    /**
+     * Deletes the generated level file, if there is one.
+     */
+    void close();
+
+    /**
+     * Creates the model of a generated room.
+     *
+     * @param width Width of the room in tiles
+     * @param height Height of the room in tiles
+     * @param entities Number of coins and traps to place in it
+     */
+    static GameModel generated(int width, int height, int entities) {
+        return create(new Class<?>[] {int.class, int.class, int.class}, width, height, entities);
+    }
+
+    /**
+     * Creates the model of a room from one of the game's level files.
+     *
+     * @param levelFilePath Path to the level file (i.e Levels/1.txt)
+     */
+    static GameModel level(String levelFilePath) {
+        return create(new Class<?>[] {String.class}, levelFilePath);
+    }
+
+    private static GameModel create(Class<?>[] parameterTypes, Object... arguments) {
+        try {
+            return (GameModel) Class.forName("BenchmarkRoom").getConstructor(parameterTypes).newInstance(arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the benchmark room", e);
+        }
+    }
+}
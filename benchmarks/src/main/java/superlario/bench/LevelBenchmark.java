@@ -0,0 +1,42 @@
+package superlario.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building each of the game's rooms from its level file in Levels/ (run from the project folder).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LevelBenchmark {
+
+    @Param({"playerRoom", "1", "2", "3", "4", "5", "6", "7", "keyRoom", "endRoom"})
+    public String level;
+
+    private GameModel model;
+
+    @Setup
+    public void setUp() {
+        model = GameModel.level("Levels/" + level + ".txt");
+    }
+
+    @Benchmark
+    public double buildMap() {
+        return model.buildMap();
+    }
+}
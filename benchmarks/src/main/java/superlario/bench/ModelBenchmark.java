@@ -0,0 +1,77 @@
+package superlario.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The game model's hot paths in generated rooms, for every combination of room size and entity count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ModelBenchmark {
+
+    @Param({"30x20", "120x80"})
+    public String roomSize;
+
+    @Param({"10", "100", "1000"})
+    public int entities;
+
+    private GameModel model;
+
+    @Setup
+    public void setUp() {
+        String[] size = roomSize.split("x");
+        model = GameModel.generated(Integer.parseInt(size[0]), Integer.parseInt(size[1]), entities);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    @Benchmark
+    public double update() {
+        return model.update();
+    }
+
+    @Benchmark
+    public double sweep() {
+        return model.sweep();
+    }
+
+    @Benchmark
+    public double checkTraps() {
+        return model.checkTraps();
+    }
+
+    @Benchmark
+    public double checkCoins() {
+        return model.checkCoins();
+    }
+
+    @Benchmark
+    public double checkTriggers() {
+        return model.checkTriggers();
+    }
+
+    @Benchmark
+    public double buildMap() {
+        return model.buildMap();
+    }
+}